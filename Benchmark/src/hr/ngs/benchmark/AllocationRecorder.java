@@ -0,0 +1,112 @@
+package hr.ngs.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+public class AllocationRecorder {
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans();
+
+	private final String name;
+	private long startBytes;
+	private long startGcCount;
+	private long startGcMillis;
+	private long allocatedBytes = -1;
+	private long gcCount;
+	private long gcMillis;
+	private long operations;
+	private long aggregates;
+
+	public AllocationRecorder(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	public long getGcCount() {
+		return gcCount;
+	}
+
+	public long getGcMillis() {
+		return gcMillis;
+	}
+
+	public long getOperations() {
+		return operations;
+	}
+
+	public long getAggregates() {
+		return aggregates;
+	}
+
+	//allocations are counted only for the calling thread, which is the one running the bench in Main
+	private static long threadAllocatedBytes() {
+		if (THREADS instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+			if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+				return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	private static long gcCount() {
+		long total = 0;
+		for (GarbageCollectorMXBean it : COLLECTORS) {
+			total += Math.max(0, it.getCollectionCount());
+		}
+		return total;
+	}
+
+	private static long gcMillis() {
+		long total = 0;
+		for (GarbageCollectorMXBean it : COLLECTORS) {
+			total += Math.max(0, it.getCollectionTime());
+		}
+		return total;
+	}
+
+	public void start() {
+		startGcCount = gcCount();
+		startGcMillis = gcMillis();
+		startBytes = threadAllocatedBytes();
+	}
+
+	//operations are bench calls in the phase, aggregates are objects written or read by them
+	public void stop(long operations, long aggregates) {
+		long bytes = threadAllocatedBytes();
+		allocatedBytes = startBytes < 0 || bytes < 0 ? -1 : bytes - startBytes;
+		gcCount = gcCount() - startGcCount;
+		gcMillis = gcMillis() - startGcMillis;
+		this.operations = operations;
+		this.aggregates = aggregates;
+	}
+
+	private long per(long count) {
+		return allocatedBytes < 0 || count == 0 ? -1 : allocatedBytes / count;
+	}
+
+	public long getAllocatedBytesPerOperation() {
+		return per(operations);
+	}
+
+	public long getAllocatedBytesPerAggregate() {
+		return per(aggregates);
+	}
+
+	public String describe() {
+		return name + "_allocated_bytes = " + allocatedBytes + System.lineSeparator()
+				+ name + "_allocated_bytes_per_op = " + getAllocatedBytesPerOperation() + System.lineSeparator()
+				+ name + "_allocated_bytes_per_aggregate = " + getAllocatedBytesPerAggregate() + System.lineSeparator()
+				+ name + "_gc_count = " + gcCount + System.lineSeparator()
+				+ name + "_gc_ms = " + gcMillis;
+	}
+}
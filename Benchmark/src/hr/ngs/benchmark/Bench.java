@@ -5,6 +5,8 @@ import org.revenj.patterns.AggregateRoot;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface Bench<T extends AggregateRoot> {
 
@@ -14,6 +16,23 @@ public interface Bench<T extends AggregateRoot> {
 
 	List<T> searchAll() throws IOException;
 
+	//streams all aggregates to the consumer, fetching fetchSize rows at a time where supported. returns number of aggregates
+	default int searchAll(int fetchSize, Consumer<T> consumer) throws IOException {
+		List<T> result = searchAll();
+		result.forEach(consumer);
+		return result.size();
+	}
+
+	//nanoseconds spent converting all rows into aggregates with streamed searchAll, or -1 when not measured
+	default long decodeNanos(int fetchSize) {
+		return -1;
+	}
+
+	//cumulative cache counters as name_hits/name_misses/name_puts, or null when bench doesn't use a cache
+	default Map<String, Long> cacheStatistics() {
+		return null;
+	}
+
 	List<T> searchSubset(int i) throws IOException;
 
 	List<T> queryAll() throws IOException;
@@ -33,4 +52,8 @@ public interface Bench<T extends AggregateRoot> {
 	void update(T value) throws IOException;
 
 	Report<T> report(int i) throws IOException;
+
+	//releases connections and factories held by the bench, so the next one can run in the same JVM
+	default void close() throws IOException {
+	}
 }
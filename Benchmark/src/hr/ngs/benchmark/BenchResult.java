@@ -0,0 +1,54 @@
+package hr.ngs.benchmark;
+
+import hr.ngs.benchmark.benches.StatementCache;
+import org.HdrHistogram.Histogram;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BenchResult {
+	public static class Phase {
+		public final String name;
+		public long durationMs = -1;
+		public Histogram latency;
+		public AllocationRecorder allocation;
+		public final Map<String, Long> metrics = new LinkedHashMap<>();
+
+		Phase(String name) {
+			this.name = name;
+		}
+	}
+
+	public final String target;
+	public final String type;
+	public final int size;
+	public final String jvm;
+	public final int statementCache;
+	public String error;
+	private final Map<String, Phase> phases = new LinkedHashMap<>();
+
+	public BenchResult(String target, String type, int size) {
+		this.target = target;
+		this.type = type;
+		this.size = size;
+		this.jvm = System.getProperty("java.vm.name") + " " + System.getProperty("java.version");
+		this.statementCache = StatementCache.size();
+	}
+
+	public Phase phase(String name) {
+		return phases.computeIfAbsent(name, Phase::new);
+	}
+
+	public Collection<Phase> getPhases() {
+		return phases.values();
+	}
+
+	public void add(LatencyRecorder latency) {
+		phase(latency.getName()).latency = latency.getHistogram();
+	}
+
+	public void add(AllocationRecorder allocation) {
+		phase(allocation.getName()).allocation = allocation;
+	}
+}
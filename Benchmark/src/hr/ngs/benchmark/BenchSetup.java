@@ -0,0 +1,35 @@
+package hr.ngs.benchmark;
+
+import org.revenj.patterns.AggregateRoot;
+
+public class BenchSetup<T extends AggregateRoot> {
+	public final Class<T> manifest;
+	public final Bench<T> bench;
+	public final ModifyObject<T> fillNew;
+	public final ModifyObject<T> changeExisting;
+
+	public BenchSetup(
+			Class<T> manifest,
+			Bench<T> bench,
+			ModifyObject<T> fillNew,
+			ModifyObject<T> changeExisting) {
+		this.manifest = manifest;
+		this.bench = bench;
+		this.fillNew = fillNew;
+		this.changeExisting = changeExisting;
+	}
+
+	public T create(int i) throws ReflectiveOperationException {
+		T value = manifest.newInstance();
+		fillNew.run(value, i);
+		return value;
+	}
+
+	public void run(int data) throws Exception {
+		run(data, new BenchResult(bench.getClass().getSimpleName(), manifest.getSimpleName(), data));
+	}
+
+	public void run(int data, BenchResult result) throws Exception {
+		Main.runBenchmark(manifest, bench, fillNew, changeExisting, data, result);
+	}
+}
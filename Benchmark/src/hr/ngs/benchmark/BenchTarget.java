@@ -0,0 +1,5 @@
+package hr.ngs.benchmark;
+
+public enum BenchTarget {
+	Jdbc_Postgres, Jdbc_Postgres_Copy, Jdbc_Postgres_Copy_Binary, Jdbc_Postgres_Unnest, Jdbc_Postgres_Json, Jdbc_Postgres_Pipelined, Jdbc_Postgres_Text, Jdbc_Postgres_Binary, Jdbc_Psql, Jdbc_MsSql, Hibernate_Postgres, Hibernate_Postgres_Tuned, Hibernate_Postgres_Cached, Hibernate_Postgres_Dirty_Tracking, Revenj, Revenj_Pooled
+}
@@ -0,0 +1,60 @@
+package hr.ngs.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+//difference in cache counters reported by a bench during a phase, eg. hits and misses of Hibernate second level cache
+public class CacheRecorder {
+	private final String name;
+	private final Bench<?> bench;
+	private Map<String, Long> started;
+	private final Map<String, Long> counters = new LinkedHashMap<>();
+
+	public CacheRecorder(String name, Bench<?> bench) {
+		this.name = name;
+		this.bench = bench;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Map<String, Long> getCounters() {
+		return counters;
+	}
+
+	public void start() {
+		started = bench.cacheStatistics();
+	}
+
+	public void stop() {
+		Map<String, Long> current = bench.cacheStatistics();
+		counters.clear();
+		for (Map.Entry<String, Long> kv : current.entrySet()) {
+			counters.put(kv.getKey(), kv.getValue() - started.getOrDefault(kv.getKey(), 0L));
+		}
+	}
+
+	//counters are expected in prefix_hits/prefix_misses pairs
+	private String ratio(String prefix) {
+		Long hits = counters.get(prefix + "_hits");
+		Long misses = counters.get(prefix + "_misses");
+		if (hits == null || misses == null || hits + misses == 0) {
+			return "n/a";
+		}
+		return String.format(Locale.ENGLISH, "%.3f", hits / (double) (hits + misses));
+	}
+
+	public String describe() {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, Long> kv : counters.entrySet()) {
+			sb.append(name).append("_cache_").append(kv.getKey()).append(" = ").append(kv.getValue()).append(System.lineSeparator());
+			if (kv.getKey().endsWith("_misses")) {
+				String prefix = kv.getKey().substring(0, kv.getKey().length() - "_misses".length());
+				sb.append(name).append("_cache_").append(prefix).append("_hit_ratio = ").append(ratio(prefix)).append(System.lineSeparator());
+			}
+		}
+		return sb.toString().trim();
+	}
+}
@@ -0,0 +1,96 @@
+package hr.ngs.benchmark;
+
+import org.revenj.patterns.AggregateRoot;
+
+import java.io.InvalidObjectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+public abstract class ConcurrentRunner {
+
+	public interface SetupFactory {
+		BenchSetup<?> create() throws Exception;
+	}
+
+	public static void run(SetupFactory factory, int threads, int data) throws Exception {
+		runConcurrent(Workload.load(factory.create(), data), factory, threads);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T extends AggregateRoot> List<Bench<T>> createBenches(SetupFactory factory, int count) throws Exception {
+		List<Bench<T>> benches = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			benches.add(((BenchSetup<T>) factory.create()).bench);
+		}
+		return benches;
+	}
+
+	static Exception unwrap(ExecutionException ex) {
+		return ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+	}
+
+	private static <T extends AggregateRoot> void runConcurrent(
+			Workload<T> workload,
+			SetupFactory factory,
+			int threads) throws Exception {
+		List<Bench<T>> workers = createBenches(factory, threads);
+		System.out.println("threads = " + threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (Workload.Operation<T> op : workload.operations) {
+				runPhase(op, workers, executor);
+			}
+			if (!workload.hasReport) {
+				System.out.println("report = -1");
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static <T extends AggregateRoot> void runPhase(
+			Workload.Operation<T> operation,
+			List<Bench<T>> workers,
+			ExecutorService executor) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<LatencyRecorder>> futures = new ArrayList<>(workers.size());
+		for (int t = 0; t < workers.size(); t++) {
+			Bench<T> bench = workers.get(t);
+			int offset = t * operation.iterations;
+			LatencyRecorder latency = new LatencyRecorder(operation.name + "_thread_" + t);
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < operation.iterations; i++) {
+					latency.start();
+					boolean valid = operation.call.run(bench, offset + i);
+					latency.stop();
+					if (!valid) {
+						throw new InvalidObjectException("Expecting results");
+					}
+				}
+				return latency;
+			}));
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		LatencyRecorder total = new LatencyRecorder(operation.name);
+		List<LatencyRecorder> perThread = new ArrayList<>(workers.size());
+		for (Future<LatencyRecorder> f : futures) {
+			try {
+				LatencyRecorder latency = f.get();
+				total.add(latency);
+				perThread.add(latency);
+			} catch (ExecutionException ex) {
+				throw unwrap(ex);
+			}
+		}
+		long elapsed = System.nanoTime() - begin;
+		System.out.println(operation.name + " = " + TimeUnit.NANOSECONDS.toMillis(elapsed));
+		System.out.println(operation.name + "_throughput = " + (long) (operation.iterations * workers.size() * 1e9 / elapsed));
+		System.out.println(total.describe());
+		for (LatencyRecorder it : perThread) {
+			System.out.println(it.getName() + "_latency_us = " + LatencyRecorder.percentiles(it.getHistogram()));
+		}
+	}
+}
@@ -0,0 +1,511 @@
+package hr.ngs.benchmark;
+
+import hr.ngs.benchmark.model.Account;
+import hr.ngs.benchmark.model.BankScrape;
+import hr.ngs.benchmark.model.Currency;
+import hr.ngs.benchmark.model.Invoice;
+import hr.ngs.benchmark.model.InvoiceItem;
+import hr.ngs.benchmark.model.Post;
+import hr.ngs.benchmark.model.Transaction;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+//pre-generated aggregates in a compact binary file, so large runs don't spend time and heap in Factories.
+//file is [magic, shape][records...][offset index][count, index position].
+//dates are stored relative to Factories.TODAY/NOW so filters built from them at run time still match.
+//records are decoded from the memory mapped file before the timed phases; one file serves all targets of a shape.
+//fields which Factories doesn't set, such as at or modifiedAt, are left to the model defaults
+public final class Dataset {
+
+	private static final int MAGIC = 0x44414c42;
+
+	enum Shape {
+		POST, INVOICE, BANK_SCRAPE
+	}
+
+	private final Path path;
+	private final Shape shape;
+	private final MappedByteBuffer buffer;
+	private final int count;
+	private final int index;
+
+	private Dataset(Path path, Shape shape, MappedByteBuffer buffer, int count, int index) {
+		this.path = path;
+		this.shape = shape;
+		this.buffer = buffer;
+		this.count = count;
+		this.index = index;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public static void main(String[] args) throws IOException {
+		BenchType type;
+		int size;
+		try {
+			type = BenchType.valueOf(args[0]);
+			size = Integer.parseInt(args[1]);
+			Paths.get(args[2]);
+		} catch (Exception ex) {
+			System.out.printf(
+					"Expected usage: java -cp dal-benchmark.jar hr.ngs.benchmark.Dataset (%s) n file",
+					Main.enumTypes(BenchType.values()));
+			return;
+		}
+		long start = System.nanoTime();
+		generate(type, size, Paths.get(args[2]));
+		System.out.println("generated " + size + " aggregates into " + args[2] + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+	static Shape shape(BenchType type) {
+		switch (type) {
+			case Simple:
+				return Shape.POST;
+			case Standard_Objects:
+			case Standard_Relations:
+				return Shape.INVOICE;
+			default:
+				return Shape.BANK_SCRAPE;
+		}
+	}
+
+	public static void generate(BenchType type, int size, Path file) throws IOException {
+		Shape shape = shape(type);
+		int[] offsets = new int[size];
+		try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile()), 65536))) {
+			dos.writeInt(MAGIC);
+			dos.writeByte(shape.ordinal());
+			for (int i = 0; i < size; i++) {
+				offsets[i] = dos.size();
+				switch (shape) {
+					case POST:
+						hr.ngs.benchmark.Simple.Post post = new hr.ngs.benchmark.Simple.Post();
+						Factories.newSimple(post, i);
+						writePost(dos, post);
+						break;
+					case INVOICE:
+						hr.ngs.benchmark.StandardRelations.Invoice invoice = new hr.ngs.benchmark.StandardRelations.Invoice();
+						Factories.newStandard(invoice, i);
+						writeInvoice(dos, invoice);
+						break;
+					default:
+						hr.ngs.benchmark.ComplexRelations.BankScrape scrape = new hr.ngs.benchmark.ComplexRelations.BankScrape();
+						Factories.newComplex(scrape, i);
+						writeBankScrape(dos, scrape);
+				}
+				//DataOutputStream counter saturates at Integer.MAX_VALUE
+				if (dos.size() == Integer.MAX_VALUE) {
+					throw new IOException("Dataset can't be larger than 2GB. Use a smaller size");
+				}
+			}
+			int indexPosition = dos.size();
+			for (int it : offsets) {
+				dos.writeInt(it);
+			}
+			dos.writeInt(size);
+			dos.writeInt(indexPosition);
+		}
+	}
+
+	public static Dataset open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE || channel.size() < 13) {
+				throw new IOException("Invalid dataset: " + file);
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			int limit = buffer.limit();
+			if (buffer.getInt(0) != MAGIC || buffer.get(4) < 0 || buffer.get(4) >= Shape.values().length) {
+				throw new IOException("Invalid dataset: " + file);
+			}
+			int count = buffer.getInt(limit - 8);
+			int index = buffer.getInt(limit - 4);
+			if (count < 0 || index < 5 || index + count * 4L != limit - 8) {
+				throw new IOException("Invalid dataset: " + file);
+			}
+			return new Dataset(file, Shape.values()[buffer.get(4)], buffer, count, index);
+		}
+	}
+
+	//first size aggregates of the dataset as manifest instances. they are decoded eagerly, so decoding is not timed
+	//as part of the first phase which touches them, and kept since later phases change them
+	@SuppressWarnings("unchecked")
+	public <T> List<T> list(Class<T> manifest, int size) {
+		Decoder<T> decoder = (Decoder<T>) decoder(manifest);
+		if (size > count) {
+			throw new IllegalArgumentException("Dataset " + path + " has only " + count + " aggregates. Requested: " + size);
+		}
+		List<T> result = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			ByteBuffer record = buffer.duplicate();
+			record.position(buffer.getInt(index + i * 4));
+			result.add(decoder.decode(record));
+		}
+		return result;
+	}
+
+	private interface Decoder<T> {
+		T decode(ByteBuffer buffer);
+	}
+
+	private Decoder<?> decoder(Class<?> manifest) {
+		Shape expected;
+		Decoder<?> decoder;
+		if (manifest == Post.class) {
+			expected = Shape.POST;
+			decoder = Dataset::readModelPost;
+		} else if (manifest == hr.ngs.benchmark.Simple.Post.class) {
+			expected = Shape.POST;
+			decoder = Dataset::readPost;
+		} else if (manifest == Invoice.class) {
+			expected = Shape.INVOICE;
+			decoder = Dataset::readModelInvoice;
+		} else if (manifest == hr.ngs.benchmark.StandardObjects.Invoice.class) {
+			expected = Shape.INVOICE;
+			decoder = Dataset::readInvoiceObjects;
+		} else if (manifest == hr.ngs.benchmark.StandardRelations.Invoice.class) {
+			expected = Shape.INVOICE;
+			decoder = Dataset::readInvoiceRelations;
+		} else if (manifest == BankScrape.class) {
+			expected = Shape.BANK_SCRAPE;
+			decoder = Dataset::readModelBankScrape;
+		} else if (manifest == hr.ngs.benchmark.ComplexObjects.BankScrape.class) {
+			expected = Shape.BANK_SCRAPE;
+			decoder = Dataset::readBankScrapeObjects;
+		} else if (manifest == hr.ngs.benchmark.ComplexRelations.BankScrape.class) {
+			expected = Shape.BANK_SCRAPE;
+			decoder = Dataset::readBankScrapeRelations;
+		} else {
+			throw new UnsupportedOperationException("Datasets are not supported for " + manifest.getName());
+		}
+		if (expected != shape) {
+			throw new IllegalArgumentException("Dataset " + path + " contains " + shape + ", but " + manifest.getName() + " was requested");
+		}
+		return decoder;
+	}
+
+	private static void writeString(DataOutputStream dos, String value) throws IOException {
+		if (value == null) {
+			dos.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			dos.writeInt(bytes.length);
+			dos.write(bytes);
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length == -1) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeDate(DataOutputStream dos, LocalDate value) throws IOException {
+		dos.writeInt(value == null ? Integer.MIN_VALUE : (int) ChronoUnit.DAYS.between(Factories.TODAY, value));
+	}
+
+	private static LocalDate readDate(ByteBuffer buffer) {
+		int days = buffer.getInt();
+		return days == Integer.MIN_VALUE ? null : Factories.TODAY.plusDays(days);
+	}
+
+	private static void writeTimestamp(DataOutputStream dos, OffsetDateTime value) throws IOException {
+		dos.writeBoolean(value != null);
+		if (value != null) {
+			Duration duration = Duration.between(Factories.NOW, value);
+			dos.writeLong(duration.getSeconds());
+			dos.writeInt(duration.getNano());
+		}
+	}
+
+	private static OffsetDateTime readTimestamp(ByteBuffer buffer) {
+		if (buffer.get() == 0) {
+			return null;
+		}
+		long seconds = buffer.getLong();
+		return Factories.NOW.plus(Duration.ofSeconds(seconds, buffer.getInt()));
+	}
+
+	private static void writeDecimal(DataOutputStream dos, BigDecimal value) throws IOException {
+		if (value == null) {
+			dos.writeByte(-1);
+		} else {
+			byte[] unscaled = value.unscaledValue().toByteArray();
+			dos.writeByte(unscaled.length);
+			dos.write(unscaled);
+			dos.writeInt(value.scale());
+		}
+	}
+
+	private static BigDecimal readDecimal(ByteBuffer buffer) {
+		int length = buffer.get();
+		if (length == -1) {
+			return null;
+		}
+		byte[] unscaled = new byte[length];
+		buffer.get(unscaled);
+		return new BigDecimal(new BigInteger(unscaled), buffer.getInt());
+	}
+
+	private static void writePost(DataOutputStream dos, hr.ngs.benchmark.Simple.Post post) throws IOException {
+		dos.writeLong(post.getId().getMostSignificantBits());
+		dos.writeLong(post.getId().getLeastSignificantBits());
+		writeString(dos, post.getTitle());
+		writeDate(dos, post.getCreated());
+	}
+
+	private static Post readModelPost(ByteBuffer buffer) {
+		return new Post(new UUID(buffer.getLong(), buffer.getLong()), readString(buffer), readDate(buffer));
+	}
+
+	private static hr.ngs.benchmark.Simple.Post readPost(ByteBuffer buffer) {
+		return new hr.ngs.benchmark.Simple.Post()
+				.setId(new UUID(buffer.getLong(), buffer.getLong()))
+				.setTitle(readString(buffer))
+				.setCreated(readDate(buffer));
+	}
+
+	private static void writeInvoice(DataOutputStream dos, hr.ngs.benchmark.StandardRelations.Invoice invoice) throws IOException {
+		writeString(dos, invoice.getNumber());
+		writeDate(dos, invoice.getDueDate());
+		writeDecimal(dos, invoice.getTotal());
+		writeTimestamp(dos, invoice.getPaid());
+		writeString(dos, invoice.getReference());
+		writeDecimal(dos, invoice.getTax());
+		dos.writeLong(invoice.getVersion());
+		dos.writeBoolean(invoice.getCanceled());
+		dos.writeInt(invoice.getItems().size());
+		for (hr.ngs.benchmark.StandardRelations.Item item : invoice.getItems()) {
+			writeString(dos, item.getProduct());
+			writeDecimal(dos, item.getCost());
+			writeDecimal(dos, item.getDiscount());
+			dos.writeInt(item.getQuantity());
+			writeDecimal(dos, item.getTaxGroup());
+		}
+	}
+
+	private static Invoice readModelInvoice(ByteBuffer buffer) {
+		Invoice invoice = new Invoice();
+		invoice.setNumber(readString(buffer));
+		invoice.setDueDate(readDate(buffer));
+		invoice.setTotal(readDecimal(buffer));
+		invoice.setPaid(readTimestamp(buffer));
+		invoice.setReference(readString(buffer));
+		//same as Factories.newStandard which uses the column scale for the hand written model
+		invoice.setTax(readDecimal(buffer).setScale(2));
+		invoice.setVersion(buffer.getLong());
+		invoice.setCanceled(buffer.get() != 0);
+		int items = buffer.getInt();
+		for (int i = 0; i < items; i++) {
+			InvoiceItem item = new InvoiceItem();
+			item.setProduct(readString(buffer));
+			item.setCost(readDecimal(buffer));
+			item.setDiscount(readDecimal(buffer));
+			item.setQuantity(buffer.getInt());
+			item.setTaxGroup(readDecimal(buffer));
+			invoice.addItem(item);
+		}
+		return invoice;
+	}
+
+	private static <T extends hr.ngs.benchmark.Standard.Invoice<T>> T readInvoiceHead(ByteBuffer buffer, T invoice) {
+		return invoice.setDueDate(readDate(buffer))
+				.setTotal(readDecimal(buffer))
+				.setPaid(readTimestamp(buffer))
+				.setReference(readString(buffer))
+				.setTax(readDecimal(buffer))
+				.setVersion(buffer.getLong())
+				.setCanceled(buffer.get() != 0);
+	}
+
+	private static hr.ngs.benchmark.StandardObjects.Invoice readInvoiceObjects(ByteBuffer buffer) {
+		hr.ngs.benchmark.StandardObjects.Invoice invoice = new hr.ngs.benchmark.StandardObjects.Invoice();
+		invoice.setNumber(readString(buffer));
+		readInvoiceHead(buffer, invoice);
+		int items = buffer.getInt();
+		for (int i = 0; i < items; i++) {
+			invoice.getItems().add(
+					new hr.ngs.benchmark.StandardObjects.Item()
+							.setProduct(readString(buffer))
+							.setCost(readDecimal(buffer))
+							.setDiscount(readDecimal(buffer))
+							.setQuantity(buffer.getInt())
+							.setTaxGroup(readDecimal(buffer)));
+		}
+		return invoice;
+	}
+
+	private static hr.ngs.benchmark.StandardRelations.Invoice readInvoiceRelations(ByteBuffer buffer) {
+		hr.ngs.benchmark.StandardRelations.Invoice invoice = new hr.ngs.benchmark.StandardRelations.Invoice();
+		invoice.setNumber(readString(buffer));
+		readInvoiceHead(buffer, invoice);
+		int items = buffer.getInt();
+		for (int i = 0; i < items; i++) {
+			invoice.getItems().add(
+					new hr.ngs.benchmark.StandardRelations.Item()
+							.setProduct(readString(buffer))
+							.setCost(readDecimal(buffer))
+							.setDiscount(readDecimal(buffer))
+							.setQuantity(buffer.getInt())
+							.setTaxGroup(readDecimal(buffer)));
+		}
+		return invoice;
+	}
+
+	private static void writeBankScrape(DataOutputStream dos, hr.ngs.benchmark.ComplexRelations.BankScrape scrape) throws IOException {
+		dos.writeInt(scrape.getId());
+		writeString(dos, scrape.getWebsite().toString());
+		dos.writeInt(scrape.getTags().size());
+		for (String tag : scrape.getTags()) {
+			writeString(dos, tag);
+		}
+		dos.writeInt(scrape.getInfo().size());
+		for (Map.Entry<String, String> kv : scrape.getInfo().entrySet()) {
+			writeString(dos, kv.getKey());
+			writeString(dos, kv.getValue());
+		}
+		writeString(dos, scrape.getExternalId());
+		dos.writeInt(scrape.getRanking());
+		writeTimestamp(dos, scrape.getCreatedAt());
+		dos.writeInt(scrape.getAccounts().size());
+		for (hr.ngs.benchmark.ComplexRelations.Account acc : scrape.getAccounts()) {
+			writeDecimal(dos, acc.getBalance());
+			writeString(dos, acc.getName());
+			writeString(dos, acc.getNumber());
+			writeString(dos, acc.getNotes());
+			dos.writeInt(acc.getTransactions().size());
+			for (hr.ngs.benchmark.ComplexRelations.Transaction tran : acc.getTransactions()) {
+				writeDecimal(dos, tran.getAmount());
+				dos.writeByte(tran.getCurrency().ordinal());
+				writeDate(dos, tran.getDate());
+				writeString(dos, tran.getDescription());
+			}
+		}
+	}
+
+	private static BankScrape readModelBankScrape(ByteBuffer buffer) {
+		BankScrape scrape = new BankScrape();
+		scrape.setId(buffer.getInt());
+		scrape.setWebsite(URI.create(readString(buffer)));
+		int tags = buffer.getInt();
+		for (int i = 0; i < tags; i++) {
+			scrape.getTags().add(readString(buffer));
+		}
+		int info = buffer.getInt();
+		for (int i = 0; i < info; i++) {
+			scrape.getInfo().put(readString(buffer), readString(buffer));
+		}
+		scrape.setExternalId(readString(buffer));
+		scrape.setRanking(buffer.getInt());
+		scrape.setCreatedAt(readTimestamp(buffer));
+		int accounts = buffer.getInt();
+		for (int i = 0; i < accounts; i++) {
+			//same as Factories.newComplex which uses the column scale for the hand written model
+			Account acc = new Account();
+			acc.setBalance(readDecimal(buffer).setScale(2));
+			acc.setName(readString(buffer));
+			acc.setNumber(readString(buffer));
+			acc.setNotes(readString(buffer));
+			scrape.addAccount(acc);
+			int transactions = buffer.getInt();
+			for (int j = 0; j < transactions; j++) {
+				Transaction tran = new Transaction();
+				tran.setAmount(readDecimal(buffer).setScale(2));
+				tran.setCurrency(Currency.values()[buffer.get()]);
+				tran.setDate(readDate(buffer));
+				tran.setDescription(readString(buffer));
+				acc.addTransaction(tran);
+			}
+		}
+		return scrape;
+	}
+
+	private static <T extends hr.ngs.benchmark.Complex.BankScrape<T>> T readBankScrapeHead(ByteBuffer buffer, T scrape) {
+		scrape.setWebsite(URI.create(readString(buffer)));
+		int tags = buffer.getInt();
+		Set<String> tagSet = new HashSet<>();
+		for (int i = 0; i < tags; i++) {
+			tagSet.add(readString(buffer));
+		}
+		int info = buffer.getInt();
+		Map<String, String> infoMap = new HashMap<>();
+		for (int i = 0; i < info; i++) {
+			infoMap.put(readString(buffer), readString(buffer));
+		}
+		return scrape.setTags(tagSet)
+				.setInfo(infoMap)
+				.setExternalId(readString(buffer))
+				.setRanking(buffer.getInt())
+				.setCreatedAt(readTimestamp(buffer));
+	}
+
+	private static hr.ngs.benchmark.ComplexObjects.BankScrape readBankScrapeObjects(ByteBuffer buffer) {
+		hr.ngs.benchmark.ComplexObjects.BankScrape scrape = new hr.ngs.benchmark.ComplexObjects.BankScrape();
+		scrape.setId(buffer.getInt());
+		readBankScrapeHead(buffer, scrape);
+		int accounts = buffer.getInt();
+		for (int i = 0; i < accounts; i++) {
+			hr.ngs.benchmark.ComplexObjects.Account acc = new hr.ngs.benchmark.ComplexObjects.Account()
+					.setBalance(readDecimal(buffer))
+					.setName(readString(buffer))
+					.setNumber(readString(buffer))
+					.setNotes(readString(buffer));
+			scrape.getAccounts().add(acc);
+			int transactions = buffer.getInt();
+			for (int j = 0; j < transactions; j++) {
+				acc.getTransactions().add(
+						new hr.ngs.benchmark.ComplexObjects.Transaction()
+								.setAmount(readDecimal(buffer))
+								.setCurrency(hr.ngs.benchmark.Complex.Currency.values()[buffer.get()])
+								.setDate(readDate(buffer))
+								.setDescription(readString(buffer)));
+			}
+		}
+		return scrape;
+	}
+
+	private static hr.ngs.benchmark.ComplexRelations.BankScrape readBankScrapeRelations(ByteBuffer buffer) {
+		hr.ngs.benchmark.ComplexRelations.BankScrape scrape = new hr.ngs.benchmark.ComplexRelations.BankScrape();
+		scrape.setId(buffer.getInt());
+		readBankScrapeHead(buffer, scrape);
+		int accounts = buffer.getInt();
+		for (int i = 0; i < accounts; i++) {
+			hr.ngs.benchmark.ComplexRelations.Account acc = new hr.ngs.benchmark.ComplexRelations.Account()
+					.setBalance(readDecimal(buffer))
+					.setName(readString(buffer))
+					.setNumber(readString(buffer))
+					.setNotes(readString(buffer));
+			scrape.getAccounts().add(acc);
+			int transactions = buffer.getInt();
+			for (int j = 0; j < transactions; j++) {
+				acc.getTransactions().add(
+						new hr.ngs.benchmark.ComplexRelations.Transaction()
+								.setAmount(readDecimal(buffer))
+								.setCurrency(hr.ngs.benchmark.Complex.Currency.values()[buffer.get()])
+								.setDate(readDate(buffer))
+								.setDescription(readString(buffer)));
+			}
+		}
+		return scrape;
+	}
+}
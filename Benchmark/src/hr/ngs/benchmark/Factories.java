@@ -1,8 +1,12 @@
 package hr.ngs.benchmark;
 
+import hr.ngs.benchmark.model.Account;
+import hr.ngs.benchmark.model.BankScrape;
+import hr.ngs.benchmark.model.Currency;
 import hr.ngs.benchmark.model.Invoice;
 import hr.ngs.benchmark.model.InvoiceItem;
 import hr.ngs.benchmark.model.Post;
+import hr.ngs.benchmark.model.Transaction;
 
 import java.math.BigDecimal;
 import java.net.URI;
@@ -148,6 +152,56 @@ public abstract class Factories {
 		}
 	}
 
+	public static ModifyObject<BankScrape> newComplex() {
+		return (scrape, i) -> {
+			scrape.setId(i);
+			scrape.setWebsite(URI.create("https://dsl-platform.com/benchmark/" + i));
+			List<String> tags = IntStream.range(i % 20, (i % 20) + (i % 6)).mapToObj(it -> "tag" + it).collect(Collectors.toList());
+			scrape.setTags(new HashSet<>(tags));
+			scrape.setInfo(new HashMap<>());
+			fillDict(i, scrape.getInfo());
+			scrape.setExternalId(i % 3 != 0 ? Integer.toString(i) : null);
+			scrape.setRanking(i);
+			scrape.setCreatedAt(NOW.plusMinutes(i));
+			for (int j = 0; j < i % 10; j++) {
+				Account acc = new Account();
+				acc.setBalance(BigDecimal.valueOf(55.0 + i / (j + 1) - j * j).setScale(2));
+				acc.setName("acc " + i + " - " + j);
+				acc.setNumber(i + "-" + j);
+				acc.setNotes("some notes " + String.format("%" + (j * 10 + 1) + "d", i).replace(' ', 'x'));
+				scrape.addAccount(acc);
+				for (int k = 0; k < (i + j) % 300; k++) {
+					Transaction tran = new Transaction();
+					tran.setAmount(BigDecimal.valueOf(i / (j + k + 100)).setScale(2));
+					tran.setCurrency(Currency.values()[k % 3]);
+					tran.setDate(TODAY.plusDays(i + j + k));
+					tran.setDescription("transaction " + i + " at " + k);
+					acc.addTransaction(tran);
+				}
+			}
+		};
+	}
+
+	public static ModifyObject<BankScrape> updateComplex() {
+		return (scrape, i) -> {
+			scrape.setAt(NOW.plusNanos(i * 1000));
+			int lenAcc = scrape.getAccounts().size() / 3;
+			for (Account acc : scrape.getAccounts()) {
+				lenAcc--;
+				if (lenAcc < 0)
+					return;
+				acc.setBalance(acc.getBalance().add(BigDecimal.valueOf(10)));
+				int lenTran = acc.getTransactions().size() / 5;
+				for (Transaction tran : acc.getTransactions()) {
+					lenTran--;
+					if (lenTran < 0)
+						break;
+					tran.setAmount(tran.getAmount().add(BigDecimal.valueOf(5)));
+				}
+			}
+		};
+	}
+
 	public static void newComplex(hr.ngs.benchmark.ComplexObjects.BankScrape scrape, int i) {
 		scrape.setId(i);
 		scrape.setWebsite(URI.create("https://dsl-platform.com/benchmark/" + i));
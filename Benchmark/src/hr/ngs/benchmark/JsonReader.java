@@ -0,0 +1,182 @@
+package hr.ngs.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//minimal json reader for result documents. objects are read as maps, arrays as lists and all numbers as doubles
+public final class JsonReader {
+	private final String input;
+	private int position;
+
+	private JsonReader(String input) {
+		this.input = input;
+	}
+
+	public static Object parse(String input) throws IOException {
+		JsonReader reader = new JsonReader(input);
+		Object result = reader.value();
+		reader.skipWhitespace();
+		if (reader.position != input.length()) {
+			throw reader.error("Unexpected content after json value");
+		}
+		return result;
+	}
+
+	private IOException error(String message) {
+		return new IOException(message + " at position " + position);
+	}
+
+	private void skipWhitespace() {
+		while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+			position++;
+		}
+	}
+
+	private char peek() throws IOException {
+		skipWhitespace();
+		if (position == input.length()) {
+			throw error("Unexpected end of json");
+		}
+		return input.charAt(position);
+	}
+
+	private void expect(char c) throws IOException {
+		if (peek() != c) {
+			throw error("Expecting '" + c + "'");
+		}
+		position++;
+	}
+
+	private void literal(String value) throws IOException {
+		if (!input.startsWith(value, position)) {
+			throw error("Expecting " + value);
+		}
+		position += value.length();
+	}
+
+	private Object value() throws IOException {
+		char c = peek();
+		switch (c) {
+			case '{':
+				return object();
+			case '[':
+				return array();
+			case '"':
+				return string();
+			case 't':
+				literal("true");
+				return Boolean.TRUE;
+			case 'f':
+				literal("false");
+				return Boolean.FALSE;
+			case 'n':
+				literal("null");
+				return null;
+			default:
+				return number();
+		}
+	}
+
+	private Map<String, Object> object() throws IOException {
+		Map<String, Object> result = new LinkedHashMap<>();
+		expect('{');
+		if (peek() == '}') {
+			position++;
+			return result;
+		}
+		while (true) {
+			peek();
+			String key = string();
+			expect(':');
+			result.put(key, value());
+			if (peek() == ',') {
+				position++;
+			} else {
+				expect('}');
+				return result;
+			}
+		}
+	}
+
+	private List<Object> array() throws IOException {
+		List<Object> result = new ArrayList<>();
+		expect('[');
+		if (peek() == ']') {
+			position++;
+			return result;
+		}
+		while (true) {
+			result.add(value());
+			if (peek() == ',') {
+				position++;
+			} else {
+				expect(']');
+				return result;
+			}
+		}
+	}
+
+	private String string() throws IOException {
+		expect('"');
+		StringBuilder sb = new StringBuilder();
+		while (position < input.length()) {
+			char c = input.charAt(position++);
+			if (c == '"') {
+				return sb.toString();
+			}
+			if (c != '\\') {
+				sb.append(c);
+				continue;
+			}
+			if (position == input.length()) {
+				break;
+			}
+			c = input.charAt(position++);
+			switch (c) {
+				case 'b':
+					sb.append('\b');
+					break;
+				case 'f':
+					sb.append('\f');
+					break;
+				case 'n':
+					sb.append('\n');
+					break;
+				case 'r':
+					sb.append('\r');
+					break;
+				case 't':
+					sb.append('\t');
+					break;
+				case 'u':
+					if (position + 4 > input.length()) {
+						throw error("Invalid unicode escape");
+					}
+					sb.append((char) Integer.parseInt(input.substring(position, position + 4), 16));
+					position += 4;
+					break;
+				default:
+					sb.append(c);
+			}
+		}
+		throw error("Unterminated string");
+	}
+
+	private Double number() throws IOException {
+		int start = position;
+		while (position < input.length() && "+-0123456789.eE".indexOf(input.charAt(position)) >= 0) {
+			position++;
+		}
+		if (start == position) {
+			throw error("Unexpected character '" + input.charAt(position) + "'");
+		}
+		try {
+			return Double.parseDouble(input.substring(start, position));
+		} catch (NumberFormatException ex) {
+			throw error("Invalid number " + input.substring(start, position));
+		}
+	}
+}
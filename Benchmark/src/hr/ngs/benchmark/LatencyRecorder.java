@@ -0,0 +1,74 @@
+package hr.ngs.benchmark;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+
+public class LatencyRecorder {
+	private final String name;
+	private final Histogram histogram;
+	private long started;
+
+	public LatencyRecorder(String name) {
+		this(name, new Histogram(3));
+	}
+
+	private LatencyRecorder(String name, Histogram histogram) {
+		this.name = name;
+		this.histogram = histogram;
+	}
+
+	//safe for record and add from multiple threads; start/stop must still be used from a single thread
+	public static LatencyRecorder concurrent(String name) {
+		return new LatencyRecorder(name, new ConcurrentHistogram(3));
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Histogram getHistogram() {
+		return histogram;
+	}
+
+	public void start() {
+		started = System.nanoTime();
+	}
+
+	public void stop() {
+		histogram.recordValue(System.nanoTime() - started);
+	}
+
+	public void record(long nanos) {
+		histogram.recordValue(nanos);
+	}
+
+	public void add(LatencyRecorder other) {
+		histogram.add(other.histogram);
+	}
+
+	//loops are closed, so calls which should have started while a slow one was running are never measured.
+	//Mean latency is used as the expected interval between calls to backfill them
+	public Histogram corrected() {
+		if (histogram.getTotalCount() == 0) {
+			return histogram.copy();
+		}
+		return histogram.copyCorrectedForCoordinatedOmission(Math.max(1, (long) histogram.getMean()));
+	}
+
+	static String percentiles(Histogram histogram) {
+		return String.format(
+				Locale.ENGLISH,
+				"p50 %.1f | p99 %.1f | p99.9 %.1f | max %.1f",
+				histogram.getValueAtPercentile(50) / 1000.0,
+				histogram.getValueAtPercentile(99) / 1000.0,
+				histogram.getValueAtPercentile(99.9) / 1000.0,
+				histogram.getMaxValue() / 1000.0);
+	}
+
+	public String describe() {
+		return name + "_latency_us = " + percentiles(histogram) + System.lineSeparator()
+				+ name + "_latency_us_corrected = " + percentiles(corrected());
+	}
+}
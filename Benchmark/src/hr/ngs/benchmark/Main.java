@@ -2,18 +2,29 @@ package hr.ngs.benchmark;
 
 import hr.ngs.benchmark.benches.HibernateBench;
 import hr.ngs.benchmark.benches.MsSqlJdbcBench;
+import hr.ngs.benchmark.benches.PostgresCopyBench;
 import hr.ngs.benchmark.benches.PostgresJdbcBench;
+import hr.ngs.benchmark.benches.PostgresJsonBench;
+import hr.ngs.benchmark.benches.PostgresPipelinedBench;
+import hr.ngs.benchmark.benches.PostgresUnnestBench;
 import hr.ngs.benchmark.benches.RevenjBench;
 import org.revenj.patterns.AggregateRoot;
 
+import java.io.IOException;
 import java.io.InvalidObjectException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class Main {
 
-	enum BenchTarget {
-		Jdbc_Postgres, Jdbc_Psql, Jdbc_MsSql, Hibernate_Postgres, Revenj
-	}
+	static int[] fetchSizes = new int[]{100, 1000, 10000};
+	static Dataset dataset;
 
 	static <T extends Enum> String enumTypes(T[] enums) {
 		StringBuilder sb = new StringBuilder();
@@ -34,60 +45,133 @@ public class Main {
 		//args = new String[]{"Revenj", "Simple", "10000"};
 		//args = new String[]{"Revenj", "Standard_Relations", "1000"};
 		//args = new String[]{"Revenj", "Complex_Relations", "300"};
+		List<String> positional = new ArrayList<>();
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].startsWith("--") && i + 1 < args.length) {
+				options.put(args[i].substring(2), args[++i]);
+			} else {
+				positional.add(args[i]);
+			}
+		}
+		args = positional.toArray(new String[positional.size()]);
 		if (args.length != 3) {
 			System.out.printf(
-					"Expected usage: java -jar json-benchamrk.jar (%s) (%s) n",
+					"Expected usage: java -jar json-benchamrk.jar (%s)[,...] (%s)[,...] (n[,...] | from..to) [--output results.(json|csv) --fork true --repeat N --dataset file --fetch-sizes 100,1000 | --threads N | --clients 1,10,100 --pool N --duration seconds | --rate (N | max) --sla ms --operation name --pool N --duration seconds]",
 					enumTypes(BenchTarget.values()),
 					enumTypes(BenchType.values()));
 			return;
 		}
 
-		BenchTarget target;
-		try {
-			target = BenchTarget.valueOf(args[0]);
-		} catch (Exception ex) {
-			System.out.println("Unknown target found: " + args[0] + ". Supported targets: " + enumTypes(BenchTarget.values()));
-			return;
+		List<BenchTarget> targets = new ArrayList<>();
+		for (String name : args[0].split(",")) {
+			try {
+				targets.add(BenchTarget.valueOf(name));
+			} catch (Exception ex) {
+				System.out.println("Unknown target found: " + name + ". Supported targets: " + enumTypes(BenchTarget.values()));
+				return;
+			}
 		}
 
-		BenchType type;
-		try {
-			type = BenchType.valueOf(args[1]);
-		} catch (Exception ex) {
-			System.out.println("Unknown type found: " + args[1] + ". Supported types: " + enumTypes(BenchType.values()));
-			return;
+		List<BenchType> types = new ArrayList<>();
+		for (String name : args[1].split(",")) {
+			try {
+				types.add(BenchType.valueOf(name));
+			} catch (Exception ex) {
+				System.out.println("Unknown type found: " + name + ". Supported types: " + enumTypes(BenchType.values()));
+				return;
+			}
 		}
 
-		int size;
+		int[] sizes;
 		try {
-			size = Integer.parseInt(args[2]);
+			sizes = args[2].contains("..")
+					? ScalingFit.geometricSizes(args[2], 10)
+					: intOption(Collections.singletonMap("size", args[2]), "size", "0");
 		} catch (Exception ex) {
 			System.out.println("Invalid count provided: " + args[2] + ". Expecting positive integer");
 			return;
 		}
-		Properties properties = new Properties();
-		properties.setProperty("mssql", "jdbc:sqlserver://localhost\\sqlexpress;databaseName=Benchmark;user=bench;password=6666");
-		properties.setProperty("psql", "jdbc:pgsql://localhost/Benchmark?user=postgres&password=6666");
-		properties.setProperty("postgres", "jdbc:postgresql://localhost:5432/Benchmark?user=postgres&password=6666");
+		BenchTarget target = targets.get(0);
+		BenchType type = types.get(0);
+		int size = sizes[0];
+		boolean matrix = targets.size() * types.size() * sizes.length > 1;
+		int threads;
+		int[] clients;
+		int pool;
+		int duration;
+		int sla;
+		int repeat;
+		try {
+			threads = intOption(options, "threads", "0")[0];
+			clients = intOption(options, "clients", "1,10,100,1000,10000");
+			pool = intOption(options, "pool", "16")[0];
+			duration = intOption(options, "duration", "10")[0];
+			sla = intOption(options, "sla", "100")[0];
+			fetchSizes = intOption(options, "fetch-sizes", "100,1000,10000");
+			repeat = intOption(options, "repeat", "1")[0];
+			if (options.containsKey("rate") && !"max".equals(options.get("rate"))) {
+				intOption(options, "rate", "0");
+			}
+		} catch (NumberFormatException ex) {
+			System.out.println("Invalid option provided: " + ex.getMessage() + ". Expecting positive integers");
+			return;
+		}
+		boolean concurrent = threads > 0 || options.containsKey("rate") || options.containsKey("clients") || options.containsKey("pool");
+		if ((matrix || repeat > 1) && concurrent) {
+			System.out.println("Concurrent modes run a single target, type and size");
+			return;
+		}
+		if (options.containsKey("dataset")) {
+			try {
+				dataset = Dataset.open(Paths.get(options.get("dataset")));
+			} catch (IOException ex) {
+				System.out.println("Unable to open dataset: " + ex.getMessage());
+				return;
+			}
+		}
+		String output = options.remove("output");
+		boolean fork = "true".equals(options.remove("fork"));
+		options.remove("repeat");
 		try {
-			switch (target) {
-				case Jdbc_MsSql:
-					MsSqlJdbcBench.runBench(properties.getProperty("mssql"), type, size);
-					break;
-				case Jdbc_Psql:
-					PostgresJdbcBench.runBench(properties.getProperty("psql"), type, size);
-					break;
-				case Jdbc_Postgres:
-					PostgresJdbcBench.runBench(properties.getProperty("postgres"), type, size);
-					break;
-				case Hibernate_Postgres:
-					HibernateBench.runBench(properties.getProperty("postgres"), type, size);
-					break;
-				case Revenj:
-					RevenjBench.runBench(properties.getProperty("postgres"), type, size);
-					break;
-				default:
-					throw new IllegalArgumentException("Unknown target");
+			if (threads > 0) {
+				ConcurrentRunner.run(() -> setup(target, type), threads, size);
+			} else if (options.containsKey("rate")) {
+				OpenLoopDriver.run(() -> setup(target, type), pool, options.get("rate"), options.get("operation"), duration, sla, size);
+			} else if (options.containsKey("clients") || options.containsKey("pool")) {
+				VirtualThreadDriver.run(() -> setup(target, type), pool, clients, duration, size);
+			} else if (fork) {
+				List<String> failures = new ArrayList<>();
+				String document = MatrixRunner.runForked(targets, types, sizes, repeat, options, output != null && ResultWriter.isCsv(output), failures);
+				if (output != null) {
+					Files.write(Paths.get(output), document.getBytes(StandardCharsets.UTF_8));
+				} else {
+					System.out.print(document);
+				}
+				if (sizes.length > 1 && (output == null || !ResultWriter.isCsv(output))) {
+					ScalingFit.print(ScalingFit.fit(document));
+				}
+				for (String it : failures) {
+					System.out.println("failed: " + it);
+				}
+				if (!failures.isEmpty()) {
+					System.exit(-2);
+				}
+			} else {
+				List<BenchResult> results = MatrixRunner.run(targets, types, sizes, repeat);
+				if (sizes.length > 1) {
+					ScalingFit.print(ScalingFit.fit(results));
+				}
+				if (output != null) {
+					try (Writer writer = Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+						ResultWriter.write(results, output, writer);
+					}
+				}
+				for (BenchResult it : results) {
+					if (it.error != null) {
+						System.exit(-2);
+					}
+				}
 			}
 			System.exit(0);
 		} catch (Exception ex) {
@@ -97,16 +181,79 @@ public class Main {
 		}
 	}
 
+	private static int[] intOption(Map<String, String> options, String name, String defaultValue) {
+		String[] values = options.getOrDefault(name, defaultValue).split(",");
+		int[] result = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			result[i] = Integer.parseInt(values[i].trim());
+			if (result[i] < 0) {
+				throw new NumberFormatException("--" + name + " " + values[i]);
+			}
+		}
+		return result;
+	}
+
+	public static BenchSetup<?> setup(BenchTarget target, BenchType type) throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty("mssql", "jdbc:sqlserver://localhost\\sqlexpress;databaseName=Benchmark;user=bench;password=6666");
+		properties.setProperty("psql", "jdbc:pgsql://localhost/Benchmark?user=postgres&password=6666");
+		properties.setProperty("postgres", "jdbc:postgresql://localhost:5432/Benchmark?user=postgres&password=6666");
+		switch (target) {
+			case Jdbc_MsSql:
+				return MsSqlJdbcBench.setup(properties.getProperty("mssql"), type);
+			case Jdbc_Psql:
+				return PostgresJdbcBench.setup(properties.getProperty("psql"), type);
+			case Jdbc_Postgres:
+				return PostgresJdbcBench.setup(properties.getProperty("postgres"), type);
+			case Jdbc_Postgres_Copy:
+				return PostgresCopyBench.setup(properties.getProperty("postgres"), type, false);
+			case Jdbc_Postgres_Copy_Binary:
+				return PostgresCopyBench.setup(properties.getProperty("postgres"), type, true);
+			case Jdbc_Postgres_Unnest:
+				return PostgresUnnestBench.setup(properties.getProperty("postgres"), type);
+			case Jdbc_Postgres_Json:
+				return PostgresJsonBench.setup(properties.getProperty("postgres"), type);
+			case Jdbc_Postgres_Pipelined:
+				return PostgresPipelinedBench.setup(properties.getProperty("postgres"), type);
+			//by default the driver switches to binary results only after the statement is executed a few times.
+			//text never prepares on the server, while binary does it from the first execution
+			case Jdbc_Postgres_Text:
+				return PostgresJdbcBench.setup(properties.getProperty("postgres") + "&prepareThreshold=0", type, true);
+			case Jdbc_Postgres_Binary:
+				return PostgresJdbcBench.setup(properties.getProperty("postgres") + "&binaryTransfer=true&prepareThreshold=-1", type, true);
+			case Hibernate_Postgres:
+				return HibernateBench.setup(properties.getProperty("postgres"), type);
+			case Hibernate_Postgres_Tuned:
+				return HibernateBench.setup(properties.getProperty("postgres") + "&reWriteBatchedInserts=true", type, HibernateBench.Mode.TUNED);
+			case Hibernate_Postgres_Cached:
+				return HibernateBench.setup(properties.getProperty("postgres"), type, HibernateBench.Mode.CACHED);
+			case Hibernate_Postgres_Dirty_Tracking:
+				return HibernateBench.setup(properties.getProperty("postgres"), type, HibernateBench.Mode.DIRTY_TRACKING);
+			case Revenj:
+				return RevenjBench.setup(properties.getProperty("postgres"), type);
+			case Revenj_Pooled:
+				return RevenjBench.setupPooled(properties.getProperty("postgres"), type);
+			default:
+				throw new IllegalArgumentException("Unknown target");
+		}
+	}
+
 	private static long elapsedMilliseconds(Date from) {
 		return new Date().getTime() - from.getTime();
 	}
 
+	private static void total(BenchResult result, String phase, long milliseconds) {
+		System.out.println(phase + " = " + milliseconds);
+		result.phase(phase).durationMs = milliseconds;
+	}
+
 	public static <T extends AggregateRoot> void runBenchmark(
 			Class<T> manifest,
 			Bench<T> bench,
 			ModifyObject<T> fillNew,
 			ModifyObject<T> changeExisting,
-			int data) throws Exception {
+			int data,
+			BenchResult result) throws Exception {
 		boolean queryAll = bench.queryAll() != null;
 		boolean querySubset = bench.querySubset(0) != null;
 		for (int i = 0; i < 50; i++) {
@@ -177,30 +324,56 @@ public class Main {
 			}
 		}
 		bench.clean();
-		List<T> items = new ArrayList<>(data);
-		for (int i = 0; i < data; i++) {
-			T t = manifest.newInstance();
-			fillNew.run(t, i);
-			items.add(t);
+		List<T> items;
+		if (dataset != null) {
+			items = dataset.list(manifest, data);
+		} else {
+			items = new ArrayList<>(data);
+			for (int i = 0; i < data; i++) {
+				T t = manifest.newInstance();
+				fillNew.run(t, i);
+				items.add(t);
+			}
 		}
 		String[] lookupUris = new String[Math.min(10, Math.min(data / 2, data / 3 + 10) - data / 3)];
 		String[] uris = new String[data / 2];
+		List<LatencyRecorder> latencies = new ArrayList<>();
+		List<AllocationRecorder> allocations = new ArrayList<>();
+		List<CacheRecorder> caches = new ArrayList<>();
+		CacheRecorder cache;
+		long aggregates;
+		AllocationRecorder allocation = new AllocationRecorder("bulk_insert");
+		allocation.start();
 		Date dt = new Date();
 		bench.insert(items);
-		System.out.println("bulk_insert = " + elapsedMilliseconds(dt));
+		total(result, "bulk_insert", elapsedMilliseconds(dt));
+		allocation.stop(1, items.size());
+		allocations.add(allocation);
 		for (int i = 0; i < items.size(); i++) {
 			changeExisting.run(items.get(i), i);
 		}
 		bench.analyze();
+		allocation = new AllocationRecorder("bulk_update");
+		allocation.start();
 		dt = new Date();
 		bench.update(items);
-		System.out.println("bulk_update = " + elapsedMilliseconds(dt));
+		total(result, "bulk_update", elapsedMilliseconds(dt));
+		allocation.stop(1, items.size());
+		allocations.add(allocation);
 		bench.clean();
+		LatencyRecorder latency = new LatencyRecorder("loop_insert_half");
+		allocation = new AllocationRecorder("loop_insert_half");
+		allocation.start();
 		dt = new Date();
 		for (int i = 0; i < items.size() / 2; i++) {
+			latency.start();
 			bench.insert(items.get(i));
+			latency.stop();
 		}
-		System.out.println("loop_insert_half = " + elapsedMilliseconds(dt));
+		total(result, "loop_insert_half", elapsedMilliseconds(dt));
+		allocation.stop(items.size() / 2, items.size() / 2);
+		latencies.add(latency);
+		allocations.add(allocation);
 		for (int i = 0; i < items.size() / 2; i++) {
 			uris[i] = items.get(i).getURI();
 		}
@@ -208,83 +381,271 @@ public class Main {
 			changeExisting.run(items.get(i), i);
 		}
 		bench.analyze();
+		latency = new LatencyRecorder("loop_update_half");
+		allocation = new AllocationRecorder("loop_update_half");
+		cache = startCache("loop_update_half", bench, caches);
+		allocation.start();
 		dt = new Date();
-		for (int i = 0; i < items.size() / 2; i++)
+		for (int i = 0; i < items.size() / 2; i++) {
+			latency.start();
 			bench.update(items.get(i));
-		System.out.println("loop_update_half = " + elapsedMilliseconds(dt));
+			latency.stop();
+		}
+		stopCache(cache);
+		total(result, "loop_update_half", elapsedMilliseconds(dt));
+		allocation.stop(items.size() / 2, items.size() / 2);
+		latencies.add(latency);
+		allocations.add(allocation);
 		bench.analyze();
+		latency = new LatencyRecorder("search_all");
+		allocation = new AllocationRecorder("search_all");
+		aggregates = 0;
+		allocation.start();
 		dt = new Date();
 		for (int i = 0; i < 100; i++) {
+			latency.start();
 			int cnt = bench.searchAll().size();
+			latency.stop();
+			aggregates += cnt;
 			if (cnt != items.size() / 2) {
 				throw new InvalidObjectException("Expecting results");
 			}
 		}
-		System.out.println("search_all = " + elapsedMilliseconds(dt));
+		total(result, "search_all", elapsedMilliseconds(dt));
+		allocation.stop(100, aggregates);
+		latencies.add(latency);
+		allocations.add(allocation);
+		latency = new LatencyRecorder("search_subset");
+		allocation = new AllocationRecorder("search_subset");
+		aggregates = 0;
+		allocation.start();
 		dt = new Date();
 		for (int i = 0; i < 3000; i++) {
+			latency.start();
 			int cnt = bench.searchSubset(i % items.size() / 2).size();
+			latency.stop();
+			aggregates += cnt;
 			if (cnt == 0) {
 				throw new InvalidObjectException("Expecting results");
 			}
 		}
-		System.out.println("search_subset = " + elapsedMilliseconds(dt));
+		total(result, "search_subset", elapsedMilliseconds(dt));
+		allocation.stop(3000, aggregates);
+		latencies.add(latency);
+		allocations.add(allocation);
 		if (queryAll) {
+			latency = new LatencyRecorder("query_all");
+			allocation = new AllocationRecorder("query_all");
+			aggregates = 0;
+			allocation.start();
 			dt = new Date();
 			for (int i = 0; i < 100; i++) {
+				latency.start();
 				int cnt = bench.queryAll().size();
+				latency.stop();
+				aggregates += cnt;
 				if (cnt != items.size() / 2) {
 					throw new InvalidObjectException("Expecting results");
 				}
 			}
-			System.out.println("query_all = " + elapsedMilliseconds(dt));
+			total(result, "query_all", elapsedMilliseconds(dt));
+			allocation.stop(100, aggregates);
+			latencies.add(latency);
+			allocations.add(allocation);
 		} else {
-			System.out.println("query_all = -1");
+			total(result, "query_all", -1);
 		}
 		if (querySubset) {
+			latency = new LatencyRecorder("query_filter");
+			allocation = new AllocationRecorder("query_filter");
+			aggregates = 0;
+			allocation.start();
 			dt = new Date();
 			for (int i = 0; i < 1000; i++) {
+				latency.start();
 				int cnt = bench.querySubset(i % items.size() / 2).size();
+				latency.stop();
+				aggregates += cnt;
 				if (cnt == 0) {
 					throw new InvalidObjectException("Expecting results");
 				}
 			}
-			System.out.println("query_filter = " + elapsedMilliseconds(dt));
+			total(result, "query_filter", elapsedMilliseconds(dt));
+			allocation.stop(1000, aggregates);
+			latencies.add(latency);
+			allocations.add(allocation);
 		} else {
-			System.out.println("query_filter = -1");
+			total(result, "query_filter", -1);
 		}
+		latency = new LatencyRecorder("find_many");
+		allocation = new AllocationRecorder("find_many");
+		cache = startCache("find_many", bench, caches);
+		aggregates = 0;
+		allocation.start();
 		dt = new Date();
 		for (int i = 0; i < 2000; i++) {
 			for (int j = 0; j < lookupUris.length; j++) {
 				lookupUris[j] = uris[(i + j + data / 3) % uris.length];
 			}
+			latency.start();
 			int cnt = bench.findMany(lookupUris).size();
+			latency.stop();
+			aggregates += cnt;
 			if (cnt == 0) {
 				throw new InvalidObjectException("Expecting results");
 			}
 		}
-		System.out.println("find_many = " + elapsedMilliseconds(dt));
+		stopCache(cache);
+		total(result, "find_many", elapsedMilliseconds(dt));
+		allocation.stop(2000, aggregates);
+		latencies.add(latency);
+		allocations.add(allocation);
+		latency = new LatencyRecorder("find_one");
+		allocation = new AllocationRecorder("find_one");
+		cache = startCache("find_one", bench, caches);
+		allocation.start();
 		dt = new Date();
 		for (int i = 0; i < 5000; i++) {
+			latency.start();
 			T res = bench.findSingle(uris[i % uris.length]);
+			latency.stop();
 			if (res == null) {
 				throw new InvalidObjectException("Expecting results");
 			}
 		}
-		System.out.println("find_one = " + elapsedMilliseconds(dt));
+		stopCache(cache);
+		total(result, "find_one", elapsedMilliseconds(dt));
+		allocation.stop(5000, 5000);
+		latencies.add(latency);
+		allocations.add(allocation);
 		Report<T> r = bench.report(0);
 		if (r == null) {
-			System.out.println("report = -1");
+			total(result, "report", -1);
 		} else {
+			latency = new LatencyRecorder("report");
+			allocation = new AllocationRecorder("report");
+			cache = startCache("report", bench, caches);
+			aggregates = 0;
+			allocation.start();
 			dt = new Date();
 			for (int i = 0; i < 1000; i++) {
+				latency.start();
 				Report<T> rr = bench.report(i % items.size() / 2);
+				latency.stop();
+				aggregates += 3 + rr.findMany.size() + rr.topFive.size() + rr.lastTen.size();
 				if (rr.lastTen.size() == 0 || rr.topFive.size() == 0 || rr.findMany.size() == 0
 						|| rr.findFirst == null || rr.findLast == null || rr.findOne == null) {
 					throw new InvalidObjectException("Expecting results");
 				}
 			}
-			System.out.println("report = " + elapsedMilliseconds(dt));
+			stopCache(cache);
+			total(result, "report", elapsedMilliseconds(dt));
+			allocation.stop(1000, aggregates);
+			latencies.add(latency);
+			allocations.add(allocation);
+		}
+		//only the first 11 lines are parsed by GatherResults, so details are printed after all totals
+		for (LatencyRecorder it : latencies) {
+			System.out.println(it.describe());
+			result.add(it);
+		}
+		for (AllocationRecorder it : allocations) {
+			System.out.println(it.describe());
+			result.add(it);
+		}
+		for (CacheRecorder it : caches) {
+			System.out.println(it.describe());
+			for (Map.Entry<String, Long> kv : it.getCounters().entrySet()) {
+				result.phase(it.getName()).metrics.put("cache_" + kv.getKey(), kv.getValue());
+			}
+		}
+		streamSearchAll(bench, items.size() / 2, result);
+	}
+
+	//benches without a cache don't report statistics
+	private static CacheRecorder startCache(String name, Bench<?> bench, List<CacheRecorder> caches) {
+		if (bench.cacheStatistics() == null) {
+			return null;
+		}
+		CacheRecorder cache = new CacheRecorder(name, bench);
+		caches.add(cache);
+		cache.start();
+		return cache;
+	}
+
+	private static void stopCache(CacheRecorder cache) {
+		if (cache != null) {
+			cache.stop();
+		}
+	}
+
+	private static List<MemoryPoolMXBean> heapPools() {
+		List<MemoryPoolMXBean> pools = new ArrayList<>();
+		for (MemoryPoolMXBean it : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (it.getType() == MemoryType.HEAP) {
+				pools.add(it);
+			}
+		}
+		return pools;
+	}
+
+	//collects garbage and resets peaks, returning heap used at the start of the measurement
+	private static long resetPeakHeap(List<MemoryPoolMXBean> pools) {
+		System.gc();
+		long used = 0;
+		for (MemoryPoolMXBean it : pools) {
+			it.resetPeakUsage();
+			used += it.getUsage().getUsed();
+		}
+		return used;
+	}
+
+	private static long peakHeapMegabytes(List<MemoryPoolMXBean> pools, long baseline) {
+		long peak = 0;
+		for (MemoryPoolMXBean it : pools) {
+			peak += it.getPeakUsage().getUsed();
+		}
+		return Math.max(0, peak - baseline) / (1024 * 1024);
+	}
+
+	private static <T extends AggregateRoot> void streamSearchAll(Bench<T> bench, int expected, BenchResult result) throws IOException {
+		List<MemoryPoolMXBean> pools = heapPools();
+		long baseline = resetPeakHeap(pools);
+		if (bench.searchAll().size() != expected) {
+			throw new InvalidObjectException("Expecting results");
+		}
+		long peak = peakHeapMegabytes(pools, baseline);
+		System.out.println("search_all_peak_heap_mb = " + peak);
+		result.phase("search_all").metrics.put("peak_heap_mb", peak);
+		for (int fetchSize : fetchSizes) {
+			int[] consumed = new int[1];
+			baseline = resetPeakHeap(pools);
+			long start = System.nanoTime();
+			for (int i = 0; i < 10; i++) {
+				int cnt = bench.searchAll(fetchSize, it -> consumed[0]++);
+				if (cnt != expected) {
+					throw new InvalidObjectException("Expecting results");
+				}
+			}
+			long elapsed = System.nanoTime() - start;
+			String name = "search_all_stream_" + fetchSize;
+			long rowsPerSecond = (long) (consumed[0] * 1e9 / elapsed);
+			peak = peakHeapMegabytes(pools, baseline);
+			System.out.println(name + " = " + elapsed / 1000000);
+			System.out.println(name + "_rows_per_second = " + rowsPerSecond);
+			System.out.println(name + "_peak_heap_mb = " + peak);
+			BenchResult.Phase phase = result.phase(name);
+			phase.durationMs = elapsed / 1000000;
+			phase.metrics.put("fetch_size", (long) fetchSize);
+			phase.metrics.put("rows", (long) consumed[0]);
+			phase.metrics.put("rows_per_second", rowsPerSecond);
+			phase.metrics.put("peak_heap_mb", peak);
+			long decode = bench.decodeNanos(fetchSize);
+			if (decode >= 0 && expected > 0) {
+				long decodePerRow = decode / expected;
+				System.out.println(name + "_decode_ns_per_row = " + decodePerRow);
+				phase.metrics.put("decode_ns_per_row", decodePerRow);
+			}
 		}
 	}
 }
@@ -0,0 +1,122 @@
+package hr.ngs.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+//runs every target x type x size combination, either in this JVM or each one in a fresh JVM.
+//repeated runs are written as separate results so they can be used as samples when comparing result files
+public abstract class MatrixRunner {
+
+	public static List<BenchResult> run(List<BenchTarget> targets, List<BenchType> types, int[] sizes, int repeat) {
+		boolean many = targets.size() * types.size() * sizes.length * repeat > 1;
+		List<BenchResult> results = new ArrayList<>();
+		for (BenchTarget target : targets) {
+			for (BenchType type : types) {
+				for (int size : sizes) {
+					for (int i = 0; i < repeat; i++) {
+						if (many) {
+							System.out.println("=== " + target + " " + type + " " + size);
+						}
+						BenchResult result = new BenchResult(target.name(), type.name(), size);
+						try {
+							BenchSetup<?> setup = Main.setup(target, type);
+							try {
+								setup.run(size, result);
+							} finally {
+								setup.bench.close();
+							}
+						} catch (Exception ex) {
+							System.out.println("error");
+							ex.printStackTrace(System.out);
+							result.error = ex.toString();
+						}
+						results.add(result);
+					}
+				}
+			}
+		}
+		return results;
+	}
+
+	//forked JVMs get the same JVM arguments and options; each one writes its results into a temporary file
+	//which is appended to the combined document. combinations whose JVM exited with an error are added to failures
+	public static String runForked(
+			List<BenchTarget> targets,
+			List<BenchType> types,
+			int[] sizes,
+			int repeat,
+			Map<String, String> options,
+			boolean csv,
+			List<String> failures) throws IOException, InterruptedException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		List<String> jvmArguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+		StringBuilder document = new StringBuilder();
+		List<String> fragments = new ArrayList<>();
+		for (BenchTarget target : targets) {
+			for (BenchType type : types) {
+				for (int size : sizes) {
+					for (int i = 0; i < repeat; i++) {
+						System.out.println("=== " + target + " " + type + " " + size);
+						File output = File.createTempFile("dal-benchmark", csv ? ".csv" : ".json");
+						try {
+							List<String> command = new ArrayList<>();
+							command.add(java);
+							command.addAll(jvmArguments);
+							command.add("-cp");
+							command.add(System.getProperty("java.class.path"));
+							command.add(Main.class.getName());
+							command.add(target.name());
+							command.add(type.name());
+							command.add(Integer.toString(size));
+							for (Map.Entry<String, String> kv : options.entrySet()) {
+								command.add("--" + kv.getKey());
+								command.add(kv.getValue());
+							}
+							command.add("--output");
+							command.add(output.getAbsolutePath());
+							int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+							String content = output.length() > 0 ? new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8) : null;
+							if (exitCode != 0) {
+								failures.add(target + " " + type + " " + size + " exited with " + exitCode);
+							}
+							if (content == null) {
+								BenchResult failed = new BenchResult(target.name(), type.name(), size);
+								failed.error = "Forked JVM exited with " + exitCode + " without results";
+								StringWriter writer = new StringWriter();
+								ResultWriter.write(Collections.singletonList(failed), output.getName(), writer);
+								content = writer.toString();
+							}
+							fragments.add(content);
+						} finally {
+							output.delete();
+						}
+					}
+				}
+			}
+		}
+		if (csv) {
+			document.append(ResultWriter.CSV_HEADER).append('\n');
+			for (String it : fragments) {
+				int header = it.indexOf('\n');
+				document.append(it.substring(header + 1));
+			}
+		} else {
+			document.append('[');
+			for (int i = 0; i < fragments.size(); i++) {
+				String it = fragments.get(i).trim();
+				String content = it.substring(1, it.length() - 1).trim();
+				if (content.isEmpty()) {
+					continue;
+				}
+				document.append(document.length() == 1 ? "\n\t" : ",\n\t").append(content);
+			}
+			document.append(document.length() == 1 ? "]\n" : "\n]\n");
+		}
+		return document.toString();
+	}
+}
@@ -0,0 +1,152 @@
+package hr.ngs.benchmark;
+
+import org.revenj.patterns.AggregateRoot;
+
+import java.io.InvalidObjectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public abstract class OpenLoopDriver {
+
+	private static final int MAX_RATE = 1000000;
+
+	public static void run(
+			ConcurrentRunner.SetupFactory factory,
+			int poolSize,
+			String rate,
+			String operation,
+			int seconds,
+			int slaMillis,
+			int data) throws Exception {
+		runDriver(Workload.load(factory.create(), data), factory, poolSize, rate, operation, seconds, slaMillis);
+	}
+
+	private static <T extends AggregateRoot> void runDriver(
+			Workload<T> workload,
+			ConcurrentRunner.SetupFactory factory,
+			int poolSize,
+			String rate,
+			String operation,
+			int seconds,
+			int slaMillis) throws Exception {
+		List<Workload.Operation<T>> operations = new ArrayList<>();
+		for (Workload.Operation<T> op : workload.operations) {
+			if (operation == null || operation.equals(op.name)) {
+				operations.add(op);
+			}
+		}
+		if (operations.isEmpty()) {
+			throw new IllegalArgumentException("Unsupported operation: " + operation);
+		}
+		BlockingQueue<Bench<T>> pool = new ArrayBlockingQueue<>(poolSize);
+		pool.addAll(ConcurrentRunner.<T>createBenches(factory, poolSize));
+		ExecutorService workers = Executors.newFixedThreadPool(poolSize);
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		long sla = TimeUnit.MILLISECONDS.toNanos(slaMillis);
+		System.out.println("pool = " + poolSize);
+		try {
+			if (!"max".equals(rate)) {
+				runStep(operations, pool, workers, scheduler, Integer.parseInt(rate), seconds, sla);
+				return;
+			}
+			int low = 0;
+			int high = 0;
+			for (int r = 100; r <= MAX_RATE; r *= 2) {
+				if (runStep(operations, pool, workers, scheduler, r, seconds, sla)) {
+					low = r;
+				} else {
+					high = r;
+					break;
+				}
+			}
+			for (int i = 0; i < 4 && high > 0 && high - low > low / 20; i++) {
+				int mid = low + (high - low) / 2;
+				if (runStep(operations, pool, workers, scheduler, mid, seconds, sla)) {
+					low = mid;
+				} else {
+					high = mid;
+				}
+			}
+			System.out.println("max_sustainable_rate = " + low);
+		} finally {
+			scheduler.shutdownNow();
+			workers.shutdownNow();
+		}
+	}
+
+	private static <T extends AggregateRoot> boolean runStep(
+			List<Workload.Operation<T>> operations,
+			BlockingQueue<Bench<T>> pool,
+			ExecutorService workers,
+			ScheduledExecutorService scheduler,
+			int rate,
+			int seconds,
+			long sla) throws Exception {
+		LatencyRecorder latency = LatencyRecorder.concurrent("rate_" + rate);
+		AtomicLong issued = new AtomicLong();
+		AtomicLong completed = new AtomicLong();
+		AtomicReference<Exception> failure = new AtomicReference<>();
+		long total = (long) rate * seconds;
+		double interval = 1e9 / rate;
+		CountDownLatch done = new CountDownLatch(1);
+		long begin = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+		ScheduledFuture<?> ticks = scheduler.scheduleAtFixedRate(() -> {
+			if (done.getCount() == 0) {
+				return;
+			}
+			long now = System.nanoTime();
+			long n = issued.get();
+			//request is issued at its intended start, regardless of how many are still being processed
+			while (n < total && begin + (long) (n * interval) <= now) {
+				long intended = begin + (long) (n * interval);
+				Workload.Operation<T> op = operations.get((int) (n % operations.size()));
+				int i = (int) (n % Integer.MAX_VALUE);
+				workers.execute(() -> {
+					try {
+						Bench<T> bench = pool.take();
+						boolean valid;
+						try {
+							valid = op.call.run(bench, i);
+						} finally {
+							pool.put(bench);
+						}
+						if (!valid) {
+							throw new InvalidObjectException("Expecting results");
+						}
+						latency.record(System.nanoTime() - intended);
+					} catch (Exception ex) {
+						failure.compareAndSet(null, ex);
+					}
+					completed.incrementAndGet();
+				});
+				n++;
+			}
+			issued.set(n);
+			//more than a second of backlog means this rate can't be sustained
+			if (n == total || n - completed.get() > rate || failure.get() != null) {
+				done.countDown();
+			}
+		}, begin - System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.NANOSECONDS);
+		done.await();
+		ticks.cancel(false);
+		boolean overloaded = issued.get() < total;
+		while (completed.get() < issued.get() && failure.get() == null) {
+			Thread.sleep(1);
+		}
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+		long elapsed = System.nanoTime() - begin;
+		long achieved = (long) (completed.get() * 1e9 / elapsed);
+		boolean sustainable = !overloaded
+				&& achieved >= rate * 0.95
+				&& latency.getHistogram().getValueAtPercentile(99) <= sla;
+		System.out.println("rate_" + rate + "_achieved = " + achieved);
+		System.out.println("rate_" + rate + "_sustainable = " + sustainable);
+		System.out.println(latency.getName() + "_latency_us = " + LatencyRecorder.percentiles(latency.getHistogram()));
+		return sustainable;
+	}
+}
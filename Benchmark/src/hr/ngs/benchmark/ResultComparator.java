@@ -0,0 +1,209 @@
+package hr.ngs.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+//compares two json result documents from the runner, eg. before and after a jar upgrade.
+//repeated runs of the same target/type/size are the samples for Welch's t-test on every phase metric.
+//exits with 1 when a regression is found, or when candidate failed or is missing phases of the baseline
+public abstract class ResultComparator {
+
+	private static final String[] METRICS = new String[]{"duration_ms", "p99_us"};
+
+	public static void main(String[] args) {
+		List<String> positional = new ArrayList<>();
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].startsWith("--") && i + 1 < args.length) {
+				options.put(args[i].substring(2), args[++i]);
+			} else {
+				positional.add(args[i]);
+			}
+		}
+		if (positional.size() != 2) {
+			System.out.println("Expected usage: java -cp dal-benchmark.jar hr.ngs.benchmark.ResultComparator baseline.json candidate.json [--threshold percent] [--alpha 0.05]");
+			System.exit(2);
+		}
+		double threshold;
+		double alpha;
+		Map<String, List<Double>> baseline;
+		Map<String, List<Double>> candidate;
+		Map<String, String> errors = new TreeMap<>();
+		try {
+			threshold = Double.parseDouble(options.getOrDefault("threshold", "5"));
+			alpha = Double.parseDouble(options.getOrDefault("alpha", "0.05"));
+			baseline = samples(positional.get(0), new TreeMap<>());
+			candidate = samples(positional.get(1), errors);
+		} catch (IOException | RuntimeException ex) {
+			System.out.println("Unable to read results: " + ex.getMessage());
+			System.exit(2);
+			return;
+		}
+		System.out.println(String.format(Locale.ENGLISH, "%-60s %4s %12s %12s %9s %8s  %s", "phase", "n", "baseline", "candidate", "change", "p", "verdict"));
+		int regressions = 0;
+		int missing = 0;
+		for (Map.Entry<String, String> kv : errors.entrySet()) {
+			System.out.println(String.format(Locale.ENGLISH, "%-60s %4s %12s %12s %9s %8s  %s", kv.getKey(), "", "", "", "", "", "ERROR " + kv.getValue()));
+		}
+		for (Map.Entry<String, List<Double>> kv : baseline.entrySet()) {
+			List<Double> after = candidate.get(kv.getKey());
+			//phase which was not measured in candidate can't be compared, so it's treated as a failure
+			if (after == null) {
+				System.out.println(String.format(Locale.ENGLISH, "%-60s %4s %12.1f %12s %9s %8s  %s", kv.getKey(), kv.getValue().size() + "/0", mean(kv.getValue()), "", "", "", "MISSING"));
+				missing++;
+				continue;
+			}
+			List<Double> before = kv.getValue();
+			double meanBefore = mean(before);
+			double meanAfter = mean(after);
+			double change = meanBefore == 0 ? 0 : (meanAfter - meanBefore) * 100 / meanBefore;
+			double p = welchPValue(before, after);
+			//with a single sample on either side only the threshold can be applied
+			boolean significant = Double.isNaN(p) || p < alpha;
+			String verdict;
+			if (significant && change > threshold) {
+				verdict = "REGRESSION";
+				regressions++;
+			} else if (significant && change < -threshold) {
+				verdict = "improvement";
+			} else {
+				verdict = "same";
+			}
+			System.out.println(String.format(
+					Locale.ENGLISH,
+					"%-60s %4s %12.1f %12.1f %8.1f%% %8s  %s",
+					kv.getKey(),
+					before.size() + "/" + after.size(),
+					meanBefore,
+					meanAfter,
+					change,
+					Double.isNaN(p) ? "n/a" : String.format(Locale.ENGLISH, "%.4f", p),
+					verdict));
+		}
+		System.out.println("regressions = " + regressions);
+		System.out.println("missing = " + missing);
+		System.out.println("errors = " + errors.size());
+		System.exit(regressions > 0 || missing > 0 || !errors.isEmpty() ? 1 : 0);
+	}
+
+	//key is target/type/size/phase/metric. failed runs are collected in errors by target/type/size,
+	//while phases they completed before failing are not used as samples
+	static Map<String, List<Double>> samples(String path, Map<String, String> errors) throws IOException {
+		String content = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+		Map<String, List<Double>> result = new TreeMap<>();
+		for (Object item : (List<?>) JsonReader.parse(content)) {
+			Map<?, ?> run = (Map<?, ?>) item;
+			String key = run.get("target") + "/" + run.get("type") + "/" + ((Double) run.get("size")).intValue();
+			if (run.get("error") != null) {
+				errors.putIfAbsent(key, String.valueOf(run.get("error")));
+				continue;
+			}
+			String prefix = key + "/";
+			for (Object p : (List<?>) run.get("phases")) {
+				Map<?, ?> phase = (Map<?, ?>) p;
+				Map<?, ?> latency = (Map<?, ?>) phase.get("latency_us");
+				for (String metric : METRICS) {
+					Object value = "p99_us".equals(metric) ? latency == null ? null : latency.get("p99") : phase.get(metric);
+					if (value instanceof Double && (Double) value >= 0) {
+						result.computeIfAbsent(prefix + phase.get("name") + "/" + metric, k -> new ArrayList<>()).add((Double) value);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	static double mean(List<Double> values) {
+		double sum = 0;
+		for (double it : values) {
+			sum += it;
+		}
+		return sum / values.size();
+	}
+
+	static double variance(List<Double> values, double mean) {
+		double sum = 0;
+		for (double it : values) {
+			sum += (it - mean) * (it - mean);
+		}
+		return sum / (values.size() - 1);
+	}
+
+	//two sided p-value of Welch's unequal variances t-test; NaN when there are not enough samples
+	static double welchPValue(List<Double> a, List<Double> b) {
+		if (a.size() < 2 || b.size() < 2) {
+			return Double.NaN;
+		}
+		double meanA = mean(a);
+		double meanB = mean(b);
+		double va = variance(a, meanA) / a.size();
+		double vb = variance(b, meanB) / b.size();
+		if (va + vb == 0) {
+			return meanA == meanB ? 1 : 0;
+		}
+		double t = (meanA - meanB) / Math.sqrt(va + vb);
+		double df = (va + vb) * (va + vb) / (va * va / (a.size() - 1) + vb * vb / (b.size() - 1));
+		return incompleteBeta(df / 2, 0.5, df / (df + t * t));
+	}
+
+	//regularized incomplete beta function I_x(a, b), evaluated with a continued fraction
+	static double incompleteBeta(double a, double b, double x) {
+		if (x <= 0) {
+			return 0;
+		}
+		if (x >= 1) {
+			return 1;
+		}
+		double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+		if (x > (a + 1) / (a + b + 2)) {
+			return 1 - front * continuedFraction(b, a, 1 - x) / b;
+		}
+		return front * continuedFraction(a, b, x) / a;
+	}
+
+	private static double continuedFraction(double a, double b, double x) {
+		final double tiny = 1e-300;
+		double c = 1;
+		double d = 1 - (a + b) * x / (a + 1);
+		d = 1 / (Math.abs(d) < tiny ? tiny : d);
+		double h = d;
+		for (int m = 1; m <= 300; m++) {
+			int m2 = 2 * m;
+			double aa = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+			d = 1 + aa * d;
+			d = 1 / (Math.abs(d) < tiny ? tiny : d);
+			c = 1 + aa / c;
+			c = Math.abs(c) < tiny ? tiny : c;
+			h *= d * c;
+			aa = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+			d = 1 + aa * d;
+			d = 1 / (Math.abs(d) < tiny ? tiny : d);
+			c = 1 + aa / c;
+			c = Math.abs(c) < tiny ? tiny : c;
+			double delta = d * c;
+			h *= delta;
+			if (Math.abs(delta - 1) < 1e-12) {
+				break;
+			}
+		}
+		return h;
+	}
+
+	//Lanczos approximation
+	private static double logGamma(double x) {
+		double[] coefficients = new double[]{
+				76.18009172947146, -86.50532032941677, 24.01409824083091,
+				-1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+		double y = x;
+		double tmp = x + 5.5;
+		tmp -= (x + 0.5) * Math.log(tmp);
+		double series = 1.000000000190015;
+		for (double it : coefficients) {
+			series += it / ++y;
+		}
+		return -tmp + Math.log(2.5066282746310005 * series / x);
+	}
+}
@@ -0,0 +1,158 @@
+package hr.ngs.benchmark;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+//json document is an array of results; csv has one row per result phase, without the extra phase metrics.
+//both formats can be concatenated by dropping the array brackets or the csv header.
+//statement_cache is the JDBC prepared statement cache size, 0 when it's disabled
+public abstract class ResultWriter {
+	public static final String CSV_HEADER = "target,type,size,jvm,statement_cache,phase,duration_ms,p50_us,p99_us,p999_us,max_us,"
+			+ "allocated_bytes,allocated_bytes_per_op,allocated_bytes_per_aggregate,gc_count,gc_ms,operations,aggregates,error";
+
+	public static boolean isCsv(String path) {
+		return path.toLowerCase(Locale.ENGLISH).endsWith(".csv");
+	}
+
+	public static void write(List<BenchResult> results, String path, Writer writer) throws IOException {
+		if (isCsv(path)) {
+			writeCsv(results, writer);
+		} else {
+			writeJson(results, writer);
+		}
+	}
+
+	private static String quote(String value) {
+		if (value == null) {
+			return "null";
+		}
+		StringBuilder sb = new StringBuilder(value.length() + 2);
+		sb.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					sb.append("\\\"");
+					break;
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				default:
+					if (c < 32) {
+						sb.append(String.format("\\u%04x", (int) c));
+					} else {
+						sb.append(c);
+					}
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	private static String micros(Histogram histogram, double percentile) {
+		long value = percentile >= 100 ? histogram.getMaxValue() : histogram.getValueAtPercentile(percentile);
+		return String.format(Locale.ENGLISH, "%.1f", value / 1000.0);
+	}
+
+	public static void writeJson(List<BenchResult> results, Writer writer) throws IOException {
+		writer.write("[");
+		for (int r = 0; r < results.size(); r++) {
+			BenchResult result = results.get(r);
+			writer.write(r == 0 ? "\n" : ",\n");
+			writer.write("\t{\"target\": " + quote(result.target)
+					+ ", \"type\": " + quote(result.type)
+					+ ", \"size\": " + result.size
+					+ ", \"jvm\": " + quote(result.jvm)
+					+ ", \"statement_cache\": " + result.statementCache
+					+ ", \"error\": " + quote(result.error)
+					+ ", \"phases\": [");
+			boolean first = true;
+			for (BenchResult.Phase phase : result.getPhases()) {
+				writer.write(first ? "\n" : ",\n");
+				first = false;
+				writer.write("\t\t{\"name\": " + quote(phase.name) + ", \"duration_ms\": " + phase.durationMs);
+				if (phase.latency != null && phase.latency.getTotalCount() > 0) {
+					writer.write(", \"latency_us\": {\"p50\": " + micros(phase.latency, 50)
+							+ ", \"p99\": " + micros(phase.latency, 99)
+							+ ", \"p99.9\": " + micros(phase.latency, 99.9)
+							+ ", \"max\": " + micros(phase.latency, 100) + "}");
+				}
+				AllocationRecorder allocation = phase.allocation;
+				if (allocation != null) {
+					writer.write(", \"allocated_bytes\": " + allocation.getAllocatedBytes()
+							+ ", \"allocated_bytes_per_op\": " + allocation.getAllocatedBytesPerOperation()
+							+ ", \"allocated_bytes_per_aggregate\": " + allocation.getAllocatedBytesPerAggregate()
+							+ ", \"gc_count\": " + allocation.getGcCount()
+							+ ", \"gc_ms\": " + allocation.getGcMillis()
+							+ ", \"operations\": " + allocation.getOperations()
+							+ ", \"aggregates\": " + allocation.getAggregates());
+				}
+				for (Map.Entry<String, Long> kv : phase.metrics.entrySet()) {
+					writer.write(", " + quote(kv.getKey()) + ": " + kv.getValue());
+				}
+				writer.write("}");
+			}
+			writer.write(first ? "]}" : "\n\t]}");
+		}
+		writer.write(results.isEmpty() ? "]\n" : "\n]\n");
+	}
+
+	private static String csv(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+
+	public static void writeCsv(List<BenchResult> results, Writer writer) throws IOException {
+		writer.write(CSV_HEADER + "\n");
+		for (BenchResult result : results) {
+			String prefix = csv(result.target) + "," + csv(result.type) + "," + result.size + "," + csv(result.jvm) + "," + result.statementCache + ",";
+			if (result.getPhases().isEmpty()) {
+				writer.write(prefix + ",,,,,,,,,,,,," + csv(result.error) + "\n");
+			}
+			for (BenchResult.Phase phase : result.getPhases()) {
+				StringBuilder sb = new StringBuilder(prefix);
+				sb.append(csv(phase.name)).append(',').append(phase.durationMs).append(',');
+				if (phase.latency != null && phase.latency.getTotalCount() > 0) {
+					sb.append(micros(phase.latency, 50)).append(',')
+							.append(micros(phase.latency, 99)).append(',')
+							.append(micros(phase.latency, 99.9)).append(',')
+							.append(micros(phase.latency, 100)).append(',');
+				} else {
+					sb.append(",,,,");
+				}
+				AllocationRecorder allocation = phase.allocation;
+				if (allocation != null) {
+					sb.append(allocation.getAllocatedBytes()).append(',')
+							.append(allocation.getAllocatedBytesPerOperation()).append(',')
+							.append(allocation.getAllocatedBytesPerAggregate()).append(',')
+							.append(allocation.getGcCount()).append(',')
+							.append(allocation.getGcMillis()).append(',')
+							.append(allocation.getOperations()).append(',')
+							.append(allocation.getAggregates()).append(',');
+				} else {
+					sb.append(",,,,,,,");
+				}
+				sb.append(csv(result.error)).append('\n');
+				writer.write(sb.toString());
+			}
+		}
+	}
+}
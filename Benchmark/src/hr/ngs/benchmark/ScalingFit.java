@@ -0,0 +1,168 @@
+package hr.ngs.benchmark;
+
+import java.io.IOException;
+import java.util.*;
+
+//fits phase durations over a size sweep to time = c * size^k with least squares on log-log values.
+//k close to 0 is constant, close to 1 linear, and above 1 points to operations which degrade superlinearly
+public abstract class ScalingFit {
+
+	public static class Fit {
+		public final String target;
+		public final String type;
+		public final String phase;
+		public final int points;
+		public final double exponent;
+		public final double r2;
+
+		Fit(String target, String type, String phase, int points, double exponent, double r2) {
+			this.target = target;
+			this.type = type;
+			this.phase = phase;
+			this.points = points;
+			this.exponent = exponent;
+			this.r2 = r2;
+		}
+
+		public String getModel() {
+			if (exponent < 0.2) {
+				return "constant";
+			} else if (exponent < 0.8) {
+				return "sublinear";
+			} else if (exponent <= 1.2) {
+				return "linear";
+			}
+			return "superlinear";
+		}
+	}
+
+	//geometric series, eg. 1000..1000000 is 1000,10000,100000,1000000
+	public static int[] geometricSizes(String range, int factor) {
+		String[] parts = range.split("\\.\\.");
+		if (parts.length != 2) {
+			throw new NumberFormatException(range);
+		}
+		long from = Integer.parseInt(parts[0].trim());
+		long to = Integer.parseInt(parts[1].trim());
+		if (from <= 0 || to < from || factor < 2) {
+			throw new NumberFormatException(range);
+		}
+		List<Integer> sizes = new ArrayList<>();
+		for (long size = from; size <= to; size *= factor) {
+			sizes.add((int) size);
+		}
+		int[] result = new int[sizes.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = sizes.get(i);
+		}
+		return result;
+	}
+
+	public static List<Fit> fit(List<BenchResult> results) {
+		//target/type/phase -> size -> durations
+		Map<List<String>, TreeMap<Integer, List<Long>>> durations = new LinkedHashMap<>();
+		for (BenchResult result : results) {
+			if (result.error != null) {
+				continue;
+			}
+			for (BenchResult.Phase phase : result.getPhases()) {
+				add(durations, result.target, result.type, result.size, phase.name, phase.durationMs);
+			}
+		}
+		return fit(durations);
+	}
+
+	public static List<Fit> fit(String json) throws IOException {
+		Map<List<String>, TreeMap<Integer, List<Long>>> durations = new LinkedHashMap<>();
+		for (Object item : (List<?>) JsonReader.parse(json)) {
+			Map<?, ?> run = (Map<?, ?>) item;
+			if (run.get("error") != null) {
+				continue;
+			}
+			for (Object p : (List<?>) run.get("phases")) {
+				Map<?, ?> phase = (Map<?, ?>) p;
+				add(durations,
+						(String) run.get("target"),
+						(String) run.get("type"),
+						((Double) run.get("size")).intValue(),
+						(String) phase.get("name"),
+						((Double) phase.get("duration_ms")).longValue());
+			}
+		}
+		return fit(durations);
+	}
+
+	private static void add(
+			Map<List<String>, TreeMap<Integer, List<Long>>> durations,
+			String target,
+			String type,
+			int size,
+			String phase,
+			long durationMs) {
+		//skipped phases report -1 and phases under the timer resolution can't be placed on a log scale
+		if (durationMs <= 0 || size <= 0) {
+			return;
+		}
+		durations.computeIfAbsent(Arrays.asList(target, type, phase), k -> new TreeMap<>())
+				.computeIfAbsent(size, k -> new ArrayList<>())
+				.add(durationMs);
+	}
+
+	private static List<Fit> fit(Map<List<String>, TreeMap<Integer, List<Long>>> durations) {
+		List<Fit> fits = new ArrayList<>();
+		for (Map.Entry<List<String>, TreeMap<Integer, List<Long>>> kv : durations.entrySet()) {
+			TreeMap<Integer, List<Long>> points = kv.getValue();
+			if (points.size() < 2) {
+				continue;
+			}
+			int n = points.size();
+			double[] x = new double[n];
+			double[] y = new double[n];
+			int i = 0;
+			for (Map.Entry<Integer, List<Long>> point : points.entrySet()) {
+				double sum = 0;
+				for (long it : point.getValue()) {
+					sum += it;
+				}
+				x[i] = Math.log(point.getKey());
+				y[i] = Math.log(sum / point.getValue().size());
+				i++;
+			}
+			double meanX = 0, meanY = 0;
+			for (i = 0; i < n; i++) {
+				meanX += x[i] / n;
+				meanY += y[i] / n;
+			}
+			double sxx = 0, sxy = 0, syy = 0;
+			for (i = 0; i < n; i++) {
+				sxx += (x[i] - meanX) * (x[i] - meanX);
+				sxy += (x[i] - meanX) * (y[i] - meanY);
+				syy += (y[i] - meanY) * (y[i] - meanY);
+			}
+			double exponent = sxy / sxx;
+			double r2 = syy == 0 ? 1 : sxy * sxy / (sxx * syy);
+			List<String> key = kv.getKey();
+			fits.add(new Fit(key.get(0), key.get(1), key.get(2), n, exponent, r2));
+		}
+		return fits;
+	}
+
+	public static void print(List<Fit> fits) {
+		String last = null;
+		for (Fit fit : fits) {
+			String header = fit.target + " " + fit.type;
+			if (!header.equals(last)) {
+				System.out.println("=== scaling " + header);
+				last = header;
+			}
+			System.out.println(String.format(
+					Locale.ENGLISH,
+					"%s_scaling_exponent = %.2f (%s, r2 = %.3f, sizes = %d)",
+					fit.phase,
+					fit.exponent,
+					fit.getModel(),
+					fit.r2,
+					fit.points));
+		}
+	}
+}
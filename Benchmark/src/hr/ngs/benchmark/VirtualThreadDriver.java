@@ -0,0 +1,118 @@
+package hr.ngs.benchmark;
+
+import org.revenj.patterns.AggregateRoot;
+
+import java.io.InvalidObjectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+public abstract class VirtualThreadDriver {
+
+	//without virtual threads (JDK < 21) every client is a platform thread. larger steps would exhaust native threads
+	//and would not be comparable with a virtual thread run, so they are skipped
+	static final int PLATFORM_CLIENT_LIMIT = 1000;
+
+	public static void run(
+			ConcurrentRunner.SetupFactory factory,
+			int poolSize,
+			int[] clients,
+			int seconds,
+			int data) throws Exception {
+		runDriver(Workload.load(factory.create(), data), factory, poolSize, clients, seconds);
+	}
+
+	static ExecutorService newClientExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException ex) {
+			return null;
+		}
+	}
+
+	private static <T extends AggregateRoot> void runDriver(
+			Workload<T> workload,
+			ConcurrentRunner.SetupFactory factory,
+			int poolSize,
+			int[] clients,
+			int seconds) throws Exception {
+		BlockingQueue<Bench<T>> pool = new ArrayBlockingQueue<>(poolSize);
+		pool.addAll(ConcurrentRunner.<T>createBenches(factory, poolSize));
+		ExecutorService probe = newClientExecutor();
+		boolean virtual = probe != null;
+		System.out.println("client_threads = " + (virtual ? "virtual" : "platform"));
+		System.out.println("pool = " + poolSize);
+		if (probe != null) {
+			probe.shutdown();
+		}
+		for (int count : clients) {
+			if (!virtual && count > PLATFORM_CLIENT_LIMIT) {
+				System.out.println("clients_" + count + "_skipped = more than " + PLATFORM_CLIENT_LIMIT + " platform threads");
+				continue;
+			}
+			runStep(workload, pool, count, seconds);
+		}
+	}
+
+	private static <T extends AggregateRoot> void runStep(
+			Workload<T> workload,
+			BlockingQueue<Bench<T>> pool,
+			int clients,
+			int seconds) throws Exception {
+		ExecutorService executor = newClientExecutor();
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(clients);
+		}
+		LatencyRecorder queueing = LatencyRecorder.concurrent("clients_" + clients + "_queue");
+		LatencyRecorder response = LatencyRecorder.concurrent("clients_" + clients + "_response");
+		AtomicLong completed = new AtomicLong();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>(clients);
+		long[] deadline = new long[1];
+		for (int c = 0; c < clients; c++) {
+			int client = c;
+			futures.add(executor.submit(() -> {
+				start.await();
+				int i = client;
+				while (System.nanoTime() < deadline[0]) {
+					Workload.Operation<T> op = workload.operations.get(i % workload.operations.size());
+					long requested = System.nanoTime();
+					Bench<T> bench = pool.take();
+					long acquired = System.nanoTime();
+					boolean valid;
+					try {
+						valid = op.call.run(bench, i);
+					} finally {
+						pool.put(bench);
+					}
+					long finished = System.nanoTime();
+					if (!valid) {
+						throw new InvalidObjectException("Expecting results");
+					}
+					queueing.record(acquired - requested);
+					response.record(finished - requested);
+					completed.incrementAndGet();
+					i += clients;
+				}
+				return null;
+			}));
+		}
+		long begin = System.nanoTime();
+		deadline[0] = begin + TimeUnit.SECONDS.toNanos(seconds);
+		start.countDown();
+		try {
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		} catch (ExecutionException ex) {
+			throw ConcurrentRunner.unwrap(ex);
+		} finally {
+			executor.shutdownNow();
+		}
+		long elapsed = System.nanoTime() - begin;
+		System.out.println("clients_" + clients + "_throughput = " + (long) (completed.get() * 1e9 / elapsed));
+		System.out.println(queueing.describe());
+		System.out.println(response.describe());
+	}
+}
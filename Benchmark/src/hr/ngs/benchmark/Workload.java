@@ -0,0 +1,91 @@
+package hr.ngs.benchmark;
+
+import org.revenj.patterns.AggregateRoot;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Workload<T extends AggregateRoot> {
+
+	public interface Call<T extends AggregateRoot> {
+		boolean run(Bench<T> bench, int i) throws IOException;
+	}
+
+	public static class Operation<T extends AggregateRoot> {
+		public final String name;
+		public final int iterations;
+		public final Call<T> call;
+
+		Operation(String name, int iterations, Call<T> call) {
+			this.name = name;
+			this.iterations = iterations;
+			this.call = call;
+		}
+	}
+
+	public final BenchSetup<T> setup;
+	public final int data;
+	public final String[] uris;
+	public final List<Operation<T>> operations = new ArrayList<>();
+	public final boolean hasReport;
+	private final int lookupSize;
+
+	private Workload(BenchSetup<T> setup, int data, String[] uris, boolean report) {
+		this.setup = setup;
+		this.data = data;
+		this.uris = uris;
+		this.hasReport = report;
+		this.lookupSize = Math.min(10, Math.min(data / 2, data / 3 + 10) - data / 3);
+		operations.add(new Operation<>("find_one", 5000, this::findOne));
+		operations.add(new Operation<>("find_many", 2000, this::findMany));
+		operations.add(new Operation<>("search_subset", 3000, this::searchSubset));
+		if (report) {
+			operations.add(new Operation<>("report", 1000, this::report));
+		}
+	}
+
+	//aggregates come from --dataset when it is given, same as in the sequential run
+	public static <T extends AggregateRoot> Workload<T> load(BenchSetup<T> setup, int data) throws Exception {
+		Bench<T> bench = setup.bench;
+		bench.clean();
+		List<T> items;
+		if (Main.dataset != null) {
+			items = Main.dataset.list(setup.manifest, data);
+		} else {
+			items = new ArrayList<>(data);
+			for (int i = 0; i < data; i++) {
+				items.add(setup.create(i));
+			}
+		}
+		bench.insert(items);
+		bench.analyze();
+		String[] uris = new String[data];
+		for (int i = 0; i < data; i++) {
+			uris[i] = items.get(i).getURI();
+		}
+		return new Workload<>(setup, data, uris, bench.report(0) != null);
+	}
+
+	public boolean findOne(Bench<T> bench, int i) throws IOException {
+		return bench.findSingle(uris[i % uris.length]) != null;
+	}
+
+	public boolean findMany(Bench<T> bench, int i) throws IOException {
+		String[] lookupUris = new String[lookupSize];
+		for (int j = 0; j < lookupUris.length; j++) {
+			lookupUris[j] = uris[(i + j + data / 3) % uris.length];
+		}
+		return bench.findMany(lookupUris).size() != 0;
+	}
+
+	public boolean searchSubset(Bench<T> bench, int i) throws IOException {
+		return bench.searchSubset(i % data / 2).size() != 0;
+	}
+
+	public boolean report(Bench<T> bench, int i) throws IOException {
+		Report<T> rr = bench.report(i % data / 2);
+		return rr.lastTen.size() != 0 && rr.topFive.size() != 0 && rr.findMany.size() != 0
+				&& rr.findFirst != null && rr.findLast != null && rr.findOne != null;
+	}
+}
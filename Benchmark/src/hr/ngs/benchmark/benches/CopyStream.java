@@ -0,0 +1,285 @@
+package hr.ngs.benchmark.benches;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+//rows are encoded into a fixed buffer which is flushed to the server as it fills up,
+//so the whole payload never exists in memory at once
+final class CopyStream {
+	private static final byte[] BINARY_HEADER = new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0, 0, 0, 0, 0, 0, 0, 0, 0};
+	private static final long PG_EPOCH_DAYS = LocalDate.of(2000, 1, 1).toEpochDay();
+	private static final long PG_EPOCH_SECONDS = PG_EPOCH_DAYS * 86400;
+	private static final short NUMERIC_POSITIVE = 0x0000;
+	private static final short NUMERIC_NEGATIVE = 0x4000;
+	private static final int[] POWERS = new int[]{1, 10, 100, 1000};
+
+	private final CopyIn copy;
+	private final boolean binary;
+	private final byte[] buffer = new byte[64 * 1024];
+	private int position;
+	private boolean firstColumn;
+
+	private CopyStream(CopyIn copy, boolean binary) {
+		this.copy = copy;
+		this.binary = binary;
+	}
+
+	public static CopyStream start(Connection connection, String target, boolean binary) throws SQLException {
+		CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn("COPY " + target + " FROM STDIN" + (binary ? " (FORMAT BINARY)" : ""));
+		CopyStream stream = new CopyStream(copy, binary);
+		if (binary) {
+			stream.write(BINARY_HEADER, 0, BINARY_HEADER.length);
+		}
+		return stream;
+	}
+
+	public void finish() throws SQLException {
+		if (binary) {
+			writeShort(-1);
+		}
+		flush();
+		copy.endCopy();
+	}
+
+	public void cancel() throws SQLException {
+		if (copy.isActive()) {
+			copy.cancelCopy();
+		}
+	}
+
+	public void startRow(int columns) throws SQLException {
+		if (binary) {
+			writeShort(columns);
+		}
+		firstColumn = true;
+	}
+
+	public void endRow() throws SQLException {
+		if (!binary) {
+			writeByte('\n');
+		}
+	}
+
+	public void addNull() throws SQLException {
+		if (binary) {
+			writeInt(-1);
+		} else {
+			separator();
+			writeByte('\\');
+			writeByte('N');
+		}
+	}
+
+	public void add(String value) throws SQLException {
+		if (value == null) {
+			addNull();
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (binary) {
+			writeInt(bytes.length);
+			write(bytes, 0, bytes.length);
+			return;
+		}
+		separator();
+		for (byte b : bytes) {
+			switch (b) {
+				case '\\':
+					writeByte('\\');
+					writeByte('\\');
+					break;
+				case '\t':
+					writeByte('\\');
+					writeByte('t');
+					break;
+				case '\n':
+					writeByte('\\');
+					writeByte('n');
+					break;
+				case '\r':
+					writeByte('\\');
+					writeByte('r');
+					break;
+				default:
+					writeByte(b);
+			}
+		}
+	}
+
+	public void add(int value) throws SQLException {
+		if (binary) {
+			writeInt(4);
+			writeInt(value);
+		} else {
+			ascii(Integer.toString(value));
+		}
+	}
+
+	public void add(long value) throws SQLException {
+		if (binary) {
+			writeInt(8);
+			writeLong(value);
+		} else {
+			ascii(Long.toString(value));
+		}
+	}
+
+	public void add(boolean value) throws SQLException {
+		if (binary) {
+			writeInt(1);
+			writeByte(value ? 1 : 0);
+		} else {
+			ascii(value ? "t" : "f");
+		}
+	}
+
+	public void add(UUID value) throws SQLException {
+		if (binary) {
+			writeInt(16);
+			writeLong(value.getMostSignificantBits());
+			writeLong(value.getLeastSignificantBits());
+		} else {
+			ascii(value.toString());
+		}
+	}
+
+	public void add(LocalDate value) throws SQLException {
+		if (binary) {
+			writeInt(4);
+			writeInt((int) (value.toEpochDay() - PG_EPOCH_DAYS));
+		} else {
+			ascii(value.toString());
+		}
+	}
+
+	//same instant as the batch path stores through Timestamp.valueOf, so values read back identically
+	public void add(LocalDateTime value) throws SQLException {
+		if (value == null) {
+			addNull();
+			return;
+		}
+		Instant instant = value.atZone(ZoneId.systemDefault()).toInstant();
+		if (binary) {
+			writeInt(8);
+			writeLong((instant.getEpochSecond() - PG_EPOCH_SECONDS) * 1000000L + instant.getNano() / 1000);
+		} else {
+			ascii(instant.toString());
+		}
+	}
+
+	public void add(BigDecimal value) throws SQLException {
+		if (value == null) {
+			addNull();
+			return;
+		}
+		if (!binary) {
+			ascii(value.toPlainString());
+			return;
+		}
+		int scale = Math.max(value.scale(), 0);
+		BigInteger unscaled = value.setScale(scale).unscaledValue();
+		String digits = unscaled.abs().toString();
+		int integerLength = digits.length() - scale;
+		int integerGroups = integerLength > 0 ? (integerLength + 3) / 4 : 0;
+		short[] groups = new short[integerGroups + (scale + 3) / 4];
+		for (int i = 0; i < digits.length(); i++) {
+			int digit = digits.charAt(i) - '0';
+			int power = integerLength - 1 - i;
+			if (power >= 0) {
+				groups[integerGroups - 1 - power / 4] += digit * POWERS[power % 4];
+			} else {
+				int fraction = -power - 1;
+				groups[integerGroups + fraction / 4] += digit * POWERS[3 - fraction % 4];
+			}
+		}
+		int start = 0;
+		int end = groups.length;
+		int weight = integerGroups - 1;
+		while (start < end && groups[start] == 0) {
+			start++;
+			weight--;
+		}
+		while (end > start && groups[end - 1] == 0) {
+			end--;
+		}
+		if (start == end) {
+			weight = 0;
+		}
+		writeInt(8 + 2 * (end - start));
+		writeShort(end - start);
+		writeShort(weight);
+		writeShort(unscaled.signum() < 0 ? NUMERIC_NEGATIVE : NUMERIC_POSITIVE);
+		writeShort(scale);
+		for (int i = start; i < end; i++) {
+			writeShort(groups[i]);
+		}
+	}
+
+	private void separator() throws SQLException {
+		if (firstColumn) {
+			firstColumn = false;
+		} else {
+			writeByte('\t');
+		}
+	}
+
+	private void ascii(String value) throws SQLException {
+		separator();
+		for (int i = 0; i < value.length(); i++) {
+			writeByte(value.charAt(i));
+		}
+	}
+
+	private void writeByte(int value) throws SQLException {
+		if (position == buffer.length) {
+			flush();
+		}
+		buffer[position++] = (byte) value;
+	}
+
+	private void writeShort(int value) throws SQLException {
+		writeByte(value >>> 8);
+		writeByte(value);
+	}
+
+	private void writeInt(int value) throws SQLException {
+		writeShort(value >>> 16);
+		writeShort(value);
+	}
+
+	private void writeLong(long value) throws SQLException {
+		writeInt((int) (value >>> 32));
+		writeInt((int) value);
+	}
+
+	private void write(byte[] bytes, int offset, int length) throws SQLException {
+		while (length > 0) {
+			if (position == buffer.length) {
+				flush();
+			}
+			int chunk = Math.min(length, buffer.length - position);
+			System.arraycopy(bytes, offset, buffer, position, chunk);
+			position += chunk;
+			offset += chunk;
+			length -= chunk;
+		}
+	}
+
+	private void flush() throws SQLException {
+		if (position > 0) {
+			copy.writeToCopy(buffer, 0, position);
+			position = 0;
+		}
+	}
+}
@@ -1,13 +1,30 @@
 package hr.ngs.benchmark.benches;
 
 import hr.ngs.benchmark.*;
+import hr.ngs.benchmark.model.Account;
+import hr.ngs.benchmark.model.BankScrape;
+import hr.ngs.benchmark.model.DirtyTracker;
 import hr.ngs.benchmark.model.Invoice;
 import hr.ngs.benchmark.model.Post;
 import org.hibernate.*;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.registry.BootstrapServiceRegistry;
+import org.hibernate.boot.registry.BootstrapServiceRegistryBuilder;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.stat.Statistics;
 import org.jinq.jpa.JinqJPAStreamProvider;
 import org.jinq.orm.stream.JinqStream;
 import org.revenj.patterns.AggregateRoot;
@@ -15,12 +32,14 @@ import org.revenj.patterns.AggregateRoot;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
 import java.io.Serializable;
 import java.sql.*;
 import java.time.LocalDate;
-import java.util.Collection;
-import java.util.List;
-import java.util.UUID;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.logging.Level;
@@ -28,82 +47,203 @@ import java.util.logging.Level;
 public abstract class HibernateBench {
 
 	public static void runBench(String connectionString, BenchType type, int data) throws Exception {
+		setup(connectionString, type).run(data);
+	}
+
+	//tuned, cached and dirty tracking modes change only configuration and session usage; mappings and queries are the same
+	public enum Mode {
+		DEFAULT, TUNED, CACHED, DIRTY_TRACKING
+	}
+
+	public static BenchSetup<?> setup(String connectionString, BenchType type) throws Exception {
+		return setup(connectionString, type, Mode.DEFAULT);
+	}
+
+	public static BenchSetup<?> setup(String connectionString, BenchType type, Mode mode) throws Exception {
 		Connection connection = DriverManager.getConnection(connectionString);
 		switch (type) {
 			case Simple:
 				Bench<Post> simpleBench =
-						new GenericHibernateBench<>(
+						create(
+								mode,
 								Post.class,
 								connection,
 								UUID::fromString,
-								(uris, criteria) -> {
-									UUID[] ids = new UUID[uris.length];
-									for (int i = 0; i < ids.length; i++) ids[i] = UUID.fromString(uris[i]);
-									return criteria.add(Restrictions.in("id", ids));
-								},
-								(i, criteria) -> criteria
-										.add(Restrictions.ge("created", Factories.TODAY.plusDays(i)))
-										.add(Restrictions.le("created", Factories.TODAY.plusDays(i + 10))),
-								HibernateBench::createSimpleReport);
-				Main.runBenchmark(
+								HibernateBench::simpleInPk,
+								HibernateBench::simpleFilter,
+								HibernateBench::simpleQuery,
+								HibernateBench::createSimpleReport,
+								null,
+								post -> Collections.emptyList());
+				return new BenchSetup<>(
 						Post.class,
 						simpleBench,
 						Factories.newSimple(),
-						Factories.updateSimple(),
-						data);
-				break;
+						Factories.updateSimple());
 			case Standard_Relations:
 				Bench<Invoice> stdRelBench =
-						new GenericHibernateBench<>(
+						create(
+								mode,
 								Invoice.class,
 								connection,
 								uri -> uri,
-								(uris, criteria) -> criteria.add(Restrictions.in("number", uris)),
-								(i, criteria) -> criteria
-										.add(Restrictions.ge("version", (long) i))
-										.add(Restrictions.le("version", (long) i + 10)),
-								HibernateBench::createStandardReport);
-				Main.runBenchmark(
+								HibernateBench::standardInPk,
+								HibernateBench::standardFilter,
+								HibernateBench::standardQuery,
+								HibernateBench::createStandardReport,
+								new String[]{"items"},
+								Invoice::getItems);
+				return new BenchSetup<>(
 						Invoice.class,
 						stdRelBench,
 						Factories.newStandard(),
-						Factories.updateStandard(),
-						data);
-				break;
+						Factories.updateStandard());
+			case Complex_Relations:
+				Bench<BankScrape> cplxRelBench =
+						create(
+								mode,
+								BankScrape.class,
+								connection,
+								Integer::valueOf,
+								HibernateBench::complexInPk,
+								HibernateBench::complexFilter,
+								HibernateBench::complexQuery,
+								HibernateBench::createComplexReport,
+								new String[]{"accounts", "accounts.transactions"},
+								HibernateBench::complexChildren);
+				return new BenchSetup<>(
+						BankScrape.class,
+						cplxRelBench,
+						Factories.newComplex(),
+						Factories.updateComplex());
 			default:
 				throw new UnsupportedOperationException();
 		}
 	}
 
-	static Report<Post> createSimpleReport(int i, Session session) {
+	//collections and children are used only by the tuned bench, for fetch joins and writes through stateless session.
+	//dirty tracking bench uses children to clear tracked changes after insert
+	private static <T extends AggregateRoot> Bench<T> create(
+			Mode mode,
+			Class<T> manifest,
+			Connection connection,
+			Function<String, Serializable> convertToPk,
+			BiFunction<String[], Criteria, Criteria> inPk,
+			GenericHibernateBench.SearchFilter searchFilter,
+			GenericHibernateBench.QueryFilter<T> queryFilter,
+			GenericHibernateBench.ReportFactory<T> reportFactory,
+			String[] collections,
+			Function<T, List<?>> children) throws SQLException {
+		switch (mode) {
+			case TUNED:
+				return new TunedHibernateBench<>(manifest, connection, convertToPk, inPk, searchFilter, queryFilter, reportFactory, collections, children);
+			case CACHED:
+				return new CachedHibernateBench<>(manifest, connection, convertToPk, inPk, searchFilter, queryFilter, reportFactory);
+			case DIRTY_TRACKING:
+				return new DirtyTrackingHibernateBench<>(manifest, connection, convertToPk, inPk, searchFilter, queryFilter, reportFactory, children);
+			default:
+				return new GenericHibernateBench<>(manifest, connection, convertToPk, inPk, searchFilter, queryFilter, reportFactory);
+		}
+	}
+
+	static Criteria simpleInPk(String[] uris, Criteria criteria) {
+		UUID[] ids = new UUID[uris.length];
+		for (int i = 0; i < ids.length; i++) ids[i] = UUID.fromString(uris[i]);
+		return criteria.add(Restrictions.in("id", ids));
+	}
+
+	static Criteria simpleFilter(int i, Criteria criteria) {
+		return criteria
+				.add(Restrictions.ge("created", Factories.TODAY.plusDays(i)))
+				.add(Restrictions.le("created", Factories.TODAY.plusDays(i + 10)));
+	}
+
+	//captured values become query parameters, so Jinq translates each lambda once and reuses it from its cache.
+	//Jinq doesn't recognize compareTo on java.time types, only isBefore/isAfter/isEqual
+	static JinqStream<Post> simpleQuery(int i, JinqStream<Post> stream) {
+		LocalDate start = Factories.TODAY.plusDays(i);
+		LocalDate end = Factories.TODAY.plusDays(i + 10);
+		return stream.where(it -> !it.getCreated().isBefore(start) && !it.getCreated().isAfter(end));
+	}
+
+	static JinqStream<Invoice> standardQuery(int i, JinqStream<Invoice> stream) {
+		long start = i;
+		long end = i + 10;
+		return stream.where(it -> it.getVersion() >= start && it.getVersion() <= end);
+	}
+
+	static Criteria standardInPk(String[] uris, Criteria criteria) {
+		return criteria.add(Restrictions.in("number", uris));
+	}
+
+	static Criteria standardFilter(int i, Criteria criteria) {
+		return criteria
+				.add(Restrictions.ge("version", (long) i))
+				.add(Restrictions.le("version", (long) i + 10));
+	}
+
+	static Criteria complexInPk(String[] uris, Criteria criteria) {
+		Integer[] ids = new Integer[uris.length];
+		for (int i = 0; i < ids.length; i++) ids[i] = Integer.valueOf(uris[i]);
+		return criteria.add(Restrictions.in("id", ids));
+	}
+
+	static Criteria complexFilter(int i, Criteria criteria) {
+		return criteria
+				.add(Restrictions.ge("createdAt", Factories.NOW.plusMinutes(i)))
+				.add(Restrictions.le("createdAt", Factories.NOW.plusMinutes(i + 10)));
+	}
+
+	static JinqStream<BankScrape> complexQuery(int i, JinqStream<BankScrape> stream) {
+		OffsetDateTime start = Factories.NOW.plusMinutes(i);
+		OffsetDateTime end = Factories.NOW.plusMinutes(i + 10);
+		return stream.where(it -> !it.getCreatedAt().isBefore(start) && !it.getCreatedAt().isAfter(end));
+	}
+
+	//accounts of a scrape go before its transactions which reference them
+	static List<?> complexChildren(BankScrape scrape) {
+		List<Object> result = new ArrayList<>(scrape.getAccounts());
+		for (Account acc : scrape.getAccounts()) {
+			result.addAll(acc.getTransactions());
+		}
+		return result;
+	}
+
+	static Report<Post> createSimpleReport(int i, Session session, boolean cacheable) {
 		Report<Post> result = new Report<>();
 		UUID id = Factories.GetUUID(i);
 		UUID[] ids = new UUID[]{Factories.GetUUID(i), Factories.GetUUID(i + 2), Factories.GetUUID(i + 5), Factories.GetUUID(i + 7)};
 		LocalDate start = Factories.TODAY.plusDays(i);
 		LocalDate end = Factories.TODAY.plusDays(i + 6);
 		result.findOne = (Post) session.createCriteria(Post.class)
+				.setCacheable(cacheable)
 				.add(Restrictions.eq("id", id))
 				.list().get(0);
 		result.findMany = session.createCriteria(Post.class)
+				.setCacheable(cacheable)
 				.add(Restrictions.in("id", ids))
 				.list();
 		result.findFirst = (Post) session.createCriteria(Post.class)
+				.setCacheable(cacheable)
 				.add(Restrictions.ge("created", start))
 				.addOrder(Order.asc("created"))
 				.setMaxResults(1)
 				.list().get(0);
 		result.findLast = (Post) session.createCriteria(Post.class)
+				.setCacheable(cacheable)
 				.add(Restrictions.le("created", end))
 				.addOrder(Order.desc("created"))
 				.setMaxResults(1)
 				.list().get(0);
 		result.topFive = session.createCriteria(Post.class)
+				.setCacheable(cacheable)
 				.add(Restrictions.ge("created", start))
 				.add(Restrictions.le("created", end))
 				.addOrder(Order.asc("created"))
 				.setMaxResults(5)
 				.list();
 		result.lastTen = session.createCriteria(Post.class)
+				.setCacheable(cacheable)
 				.add(Restrictions.ge("created", start))
 				.add(Restrictions.le("created", end))
 				.addOrder(Order.desc("created"))
@@ -112,35 +252,41 @@ public abstract class HibernateBench {
 		return result;
 	}
 
-	static Report<Invoice> createStandardReport(int i, Session session) {
+	static Report<Invoice> createStandardReport(int i, Session session, boolean cacheable) {
 		Report<Invoice> result = new Report<>();
 		String id = Integer.toString(i);
 		String[] ids = new String[]{Integer.toString(i), Integer.toString(i + 2), Integer.toString(i + 5), Integer.toString(i + 7)};
 		long start = i;
 		long end = i + 6;
 		result.findOne = (Invoice) session.createCriteria(Invoice.class)
+				.setCacheable(cacheable)
 				.add(Restrictions.eq("number", id))
 				.list().get(0);
 		result.findMany = session.createCriteria(Invoice.class)
+				.setCacheable(cacheable)
 				.add(Restrictions.in("number", ids))
 				.list();
 		result.findFirst = (Invoice) session.createCriteria(Invoice.class)
+				.setCacheable(cacheable)
 				.add(Restrictions.ge("version", start))
 				.addOrder(Order.asc("createdAt"))
 				.setMaxResults(1)
 				.list().get(0);
 		result.findLast = (Invoice) session.createCriteria(Invoice.class)
+				.setCacheable(cacheable)
 				.add(Restrictions.le("version", end))
 				.addOrder(Order.desc("createdAt"))
 				.setMaxResults(1)
 				.list().get(0);
 		result.topFive = session.createCriteria(Invoice.class)
+				.setCacheable(cacheable)
 				.add(Restrictions.ge("version", start))
 				.add(Restrictions.le("version", end))
 				.addOrder(Order.asc("createdAt"))
 				.setMaxResults(5)
 				.list();
 		result.lastTen = session.createCriteria(Invoice.class)
+				.setCacheable(cacheable)
 				.add(Restrictions.ge("version", start))
 				.add(Restrictions.le("version", end))
 				.addOrder(Order.desc("createdAt"))
@@ -149,21 +295,106 @@ public abstract class HibernateBench {
 		return result;
 	}
 
-	static class GenericHibernateBench<T extends AggregateRoot> implements Bench<T> {
-		private final Class<T> manifest;
-		private final Session session;
+	static Report<BankScrape> createComplexReport(int i, Session session, boolean cacheable) {
+		Report<BankScrape> result = new Report<>();
+		Integer[] ids = new Integer[]{i, i + 2, i + 5, i + 7};
+		OffsetDateTime start = Factories.NOW.plusMinutes(i);
+		OffsetDateTime end = Factories.NOW.plusMinutes(i + 6);
+		result.findOne = (BankScrape) session.createCriteria(BankScrape.class)
+				.setCacheable(cacheable)
+				.add(Restrictions.eq("id", i))
+				.list().get(0);
+		result.findMany = session.createCriteria(BankScrape.class)
+				.setCacheable(cacheable)
+				.add(Restrictions.in("id", ids))
+				.list();
+		result.findFirst = (BankScrape) session.createCriteria(BankScrape.class)
+				.setCacheable(cacheable)
+				.add(Restrictions.ge("createdAt", start))
+				.addOrder(Order.asc("createdAt"))
+				.setMaxResults(1)
+				.list().get(0);
+		result.findLast = (BankScrape) session.createCriteria(BankScrape.class)
+				.setCacheable(cacheable)
+				.add(Restrictions.le("createdAt", end))
+				.addOrder(Order.desc("createdAt"))
+				.setMaxResults(1)
+				.list().get(0);
+		result.topFive = session.createCriteria(BankScrape.class)
+				.setCacheable(cacheable)
+				.add(Restrictions.ge("createdAt", start))
+				.add(Restrictions.le("createdAt", end))
+				.addOrder(Order.asc("createdAt"))
+				.setMaxResults(5)
+				.list();
+		result.lastTen = session.createCriteria(BankScrape.class)
+				.setCacheable(cacheable)
+				.add(Restrictions.ge("createdAt", start))
+				.add(Restrictions.le("createdAt", end))
+				.addOrder(Order.desc("createdAt"))
+				.setMaxResults(10)
+				.list();
+		return result;
+	}
+
+	//persistence unit uses the same connection as the sessions instead of opening its own from configuration
+	private static class SharedConnectionProvider implements ConnectionProvider {
 		private final Connection connection;
-		private final Function<String, Serializable> convertToPk;
-		private final BiFunction<String[], Criteria, Criteria> inPk;
-		private final SearchFilter searchFilter;
-		private final ReportFactory<T> reportFactory;
+
+		SharedConnectionProvider(Connection connection) {
+			this.connection = connection;
+		}
+
+		@Override
+		public Connection getConnection() {
+			return connection;
+		}
+
+		@Override
+		public void closeConnection(Connection conn) {
+		}
+
+		@Override
+		public boolean supportsAggressiveRelease() {
+			return false;
+		}
+
+		@Override
+		public boolean isUnwrappableAs(Class unwrapType) {
+			return false;
+		}
+
+		@Override
+		public <U> U unwrap(Class<U> unwrapType) {
+			throw new UnknownUnwrapTypeException(unwrapType);
+		}
+	}
+
+	static class GenericHibernateBench<T extends AggregateRoot> implements Bench<T> {
+		protected final Class<T> manifest;
+		protected final SessionFactory sessionFactory;
+		protected final Session session;
+		protected final Connection connection;
+		protected final Function<String, Serializable> convertToPk;
+		protected final BiFunction<String[], Criteria, Criteria> inPk;
+		protected final SearchFilter searchFilter;
+		protected final QueryFilter<T> queryFilter;
+		protected final ReportFactory<T> reportFactory;
+		protected final EntityManagerFactory entityManagerFactory;
+		protected final EntityManager entityManager;
+		protected final JinqJPAStreamProvider streams;
+		private final CriteriaQuery<T> queryAll;
 
 		interface SearchFilter {
 			Criteria applyFilter(int i, Criteria criteria);
 		}
 
+		interface QueryFilter<T> {
+			JinqStream<T> applyFilter(int i, JinqStream<T> stream);
+		}
+
 		interface ReportFactory<T> {
-			Report<T> createReport(int i, Session session);
+			Report<T> createReport(int i, Session session, boolean cacheable);
 		}
 
 		public GenericHibernateBench(
@@ -172,19 +403,51 @@ public abstract class HibernateBench {
 				Function<String, Serializable> convertToPk,
 				BiFunction<String[], Criteria, Criteria> inPk,
 				SearchFilter searchFilter,
+				QueryFilter<T> queryFilter,
 				ReportFactory<T> reportFactory) throws SQLException {
+			this(manifest, connection, convertToPk, inPk, searchFilter, queryFilter, reportFactory, configuration -> {});
+		}
+
+		protected GenericHibernateBench(
+				Class<T> manifest,
+				Connection connection,
+				Function<String, Serializable> convertToPk,
+				BiFunction<String[], Criteria, Criteria> inPk,
+				SearchFilter searchFilter,
+				QueryFilter<T> queryFilter,
+				ReportFactory<T> reportFactory,
+				Consumer<Configuration> configure) throws SQLException {
+			this(manifest, connection, convertToPk, inPk, searchFilter, queryFilter, reportFactory, configure, new BootstrapServiceRegistryBuilder().build());
+		}
+
+		//bootstrap registry is used to add integrators, which see the mappings before persisters are built
+		protected GenericHibernateBench(
+				Class<T> manifest,
+				Connection connection,
+				Function<String, Serializable> convertToPk,
+				BiFunction<String[], Criteria, Criteria> inPk,
+				SearchFilter searchFilter,
+				QueryFilter<T> queryFilter,
+				ReportFactory<T> reportFactory,
+				Consumer<Configuration> configure,
+				BootstrapServiceRegistry bootstrap) throws SQLException {
 			this.manifest = manifest;
 			this.convertToPk = convertToPk;
 			this.inPk = inPk;
 			this.searchFilter = searchFilter;
+			this.queryFilter = queryFilter;
 			this.reportFactory = reportFactory;
 			java.util.logging.Logger.getLogger("org.hibernate").setLevel(Level.OFF);
-			Configuration configuration = new Configuration();
+			Configuration configuration = new Configuration(bootstrap);
 			configuration.configure("hibernate_postgres.cfg.xml");
 			configuration.addResource("Simple.hbm.xml");
 			configuration.addResource("Standard.hbm.xml");
-			StandardServiceRegistryBuilder ssrb = new StandardServiceRegistryBuilder().applySettings(configuration.getProperties());
-			SessionFactory sessionFactory = configuration.buildSessionFactory(ssrb.build());
+			configuration.addResource("Complex.hbm.xml");
+			//JPA queries are not affected by tuned or cached configuration, so persistence unit gets only the base settings
+			Map<Object, Object> jpaSettings = new HashMap<>(configuration.getProperties());
+			configure.accept(configuration);
+			StandardServiceRegistryBuilder ssrb = new StandardServiceRegistryBuilder(bootstrap).applySettings(configuration.getProperties());
+			this.sessionFactory = configuration.buildSessionFactory(ssrb.build());
 			this.connection = connection;
 			this.session = sessionFactory.withOptions()
 					.noInterceptor()
@@ -192,6 +455,14 @@ public abstract class HibernateBench {
 					.autoJoinTransactions(false)
 					.clearEventListeners()
 					.connection(connection).openSession();
+			jpaSettings.put(AvailableSettings.CONNECTION_PROVIDER, new SharedConnectionProvider(connection));
+			this.entityManagerFactory = Persistence.createEntityManagerFactory("hibernate_postgres", jpaSettings);
+			this.entityManager = entityManagerFactory.createEntityManager();
+			this.streams = new JinqJPAStreamProvider(entityManagerFactory);
+			this.streams.setHint("useCaching", true);
+			CriteriaBuilder builder = entityManagerFactory.getCriteriaBuilder();
+			this.queryAll = builder.createQuery(manifest);
+			this.queryAll.select(queryAll.from(manifest));
 		}
 
 		@Override
@@ -200,6 +471,7 @@ public abstract class HibernateBench {
 				connection.setAutoCommit(true);
 				session.createSQLQuery("DELETE FROM \"Simple\".\"Post\"").executeUpdate();
 				session.createSQLQuery("DELETE FROM \"StandardRelations\".\"Invoice\"").executeUpdate();
+				session.createSQLQuery("DELETE FROM \"ComplexRelations\".\"BankScrape\"").executeUpdate();
 				session.clear();
 			} catch (SQLException e) {
 				throw new RuntimeException(e);
@@ -217,6 +489,20 @@ public abstract class HibernateBench {
 			}
 		}
 
+		//factories own the cache manager and statement caches, while the connection is shared and closed last
+		@Override
+		public void close() {
+			entityManager.close();
+			entityManagerFactory.close();
+			session.close();
+			sessionFactory.close();
+			try {
+				connection.close();
+			} catch (SQLException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
 		@Override
 		public List<T> searchAll() {
 			try {
@@ -226,6 +512,33 @@ public abstract class HibernateBench {
 			}
 		}
 
+		//each aggregate is evicted after it is consumed, so the session does not grow with the result
+		@Override
+		public int searchAll(int fetchSize, Consumer<T> consumer) {
+			try {
+				connection.setAutoCommit(false);
+				int count = 0;
+				try (ScrollableResults results = session.createCriteria(manifest)
+						.setFetchSize(fetchSize)
+						.setReadOnly(true)
+						.scroll(ScrollMode.FORWARD_ONLY)) {
+					while (results.next()) {
+						T item = (T) results.get(0);
+						consumer.accept(item);
+						session.evict(item);
+						count++;
+					}
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+				return count;
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			} finally {
+				session.clear();
+			}
+		}
+
 		@Override
 		public List<T> searchSubset(int i) {
 			try {
@@ -301,25 +614,435 @@ public abstract class HibernateBench {
 			session.evict(value);
 		}
 
+		//criteria is built once and Hibernate caches its translation in the query plan cache
 		@Override
 		public List<T> queryAll() {
-			return null;
-			//JinqStream<Invoice> stream = streams.streamAll(entityManager, Invoice.class);
-			//return stream.toList();
+			try {
+				return entityManager.createQuery(queryAll).getResultList();
+			} finally {
+				entityManager.clear();
+			}
 		}
 
 		@Override
 		public List<T> querySubset(int i) {
-			//JinqStream<Invoice> stream = streams.streamAll(entityManager, Invoice.class);
-			//LocalDate start = Factories.TODAY.plusDays(i);
-			//LocalDate end = Factories.TODAY.plusDays(i + 10);
-			return null;// stream.where(it -> it.getCreated().compareTo(start) >= 0 && it.getCreated().compareTo(end) <= 0).toList();
+			try {
+				return queryFilter.applyFilter(i, streams.streamAll(entityManager, manifest)).toList();
+			} finally {
+				entityManager.clear();
+			}
 		}
 
 		@Override
 		public Report<T> report(int i) {
 			session.clear();
-			return reportFactory.createReport(i, session);
+			return reportFactory.createReport(i, session, false);
+		}
+	}
+
+	//Hibernate as it would be configured for production: JDBC batching with ordered statements,
+	//StatelessSession for writes and fetch joins instead of a select per collection on reads.
+	//nested collections are fetched too (lists, so no multiple bag fetch) - accounts with their transactions in a single select
+	static class TunedHibernateBench<T extends AggregateRoot> extends GenericHibernateBench<T> {
+		private static void configure(Configuration configuration) {
+			configuration.setProperty("hibernate.jdbc.batch_size", "100");
+			configuration.setProperty("hibernate.order_inserts", "true");
+			configuration.setProperty("hibernate.order_updates", "true");
+			configuration.setProperty("hibernate.jdbc.batch_versioned_data", "true");
+			//collections loaded outside of fetch joins (find one, reports, queries) are loaded in batches instead of per parent
+			configuration.setProperty("hibernate.default_batch_fetch_size", "100");
+		}
+
+		private final StatelessSession stateless;
+		private final String[] collections;
+		private final Function<T, List<?>> children;
+
+		public TunedHibernateBench(
+				Class<T> manifest,
+				Connection connection,
+				Function<String, Serializable> convertToPk,
+				BiFunction<String[], Criteria, Criteria> inPk,
+				SearchFilter searchFilter,
+				QueryFilter<T> queryFilter,
+				ReportFactory<T> reportFactory,
+				String[] collections,
+				Function<T, List<?>> children) throws SQLException {
+			super(manifest, connection, convertToPk, inPk, searchFilter, queryFilter, reportFactory, TunedHibernateBench::configure);
+			this.stateless = sessionFactory.openStatelessSession(connection);
+			this.collections = collections;
+			this.children = children;
+		}
+
+		@Override
+		public void close() {
+			stateless.close();
+			super.close();
+		}
+
+		//join fetched collection repeats the root for every child
+		private Criteria fetch(Criteria criteria) {
+			if (collections == null) {
+				return criteria;
+			}
+			for (String path : collections) {
+				criteria.setFetchMode(path, FetchMode.JOIN);
+			}
+			return criteria.setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
+		}
+
+		@Override
+		public List<T> searchAll() {
+			try {
+				return fetch(session.createCriteria(manifest)).list();
+			} finally {
+				session.clear();
+			}
+		}
+
+		@Override
+		public List<T> searchSubset(int i) {
+			try {
+				return fetch(searchFilter.applyFilter(i, session.createCriteria(manifest))).list();
+			} finally {
+				session.clear();
+			}
+		}
+
+		@Override
+		public T findSingle(String uri) {
+			try {
+				List<T> result = fetch(inPk.apply(new String[]{uri}, session.createCriteria(manifest))).list();
+				return result.isEmpty() ? null : result.get(0);
+			} finally {
+				session.clear();
+			}
+		}
+
+		@Override
+		public List<T> findMany(String[] ids) {
+			try {
+				return fetch(inPk.apply(ids, session.createCriteria(manifest))).list();
+			} finally {
+				session.clear();
+			}
+		}
+
+		//stateless session doesn't cascade, so children are written explicitly.
+		//all roots go before all children, otherwise alternating statements would flush the batch on every row
+		@Override
+		public void insert(Collection<T> values) {
+			Transaction tx = stateless.beginTransaction();
+			for (T it : values) {
+				stateless.insert(it);
+			}
+			for (T it : values) {
+				for (Object child : children.apply(it)) {
+					stateless.insert(child);
+				}
+			}
+			tx.commit();
+		}
+
+		@Override
+		public void update(Collection<T> values) {
+			Transaction tx = stateless.beginTransaction();
+			for (T it : values) {
+				stateless.update(it);
+			}
+			for (T it : values) {
+				for (Object child : children.apply(it)) {
+					stateless.update(child);
+				}
+			}
+			tx.commit();
+		}
+
+		@Override
+		public void insert(T value) {
+			insert(Collections.singletonList(value));
+		}
+
+		@Override
+		public void update(T value) {
+			update(Collections.singletonList(value));
+		}
+	}
+
+	//second level cache for aggregate roots, their child collections and child entities, with a query cache for criteria searches.
+	//mappings declare read-write caching which is ignored unless enabled; regions are bounded in ehcache_hibernate.xml.
+	//writes go through Hibernate transactions so cached entries and query results are invalidated when they are committed
+	static class CachedHibernateBench<T extends AggregateRoot> extends GenericHibernateBench<T> {
+		public CachedHibernateBench(
+				Class<T> manifest,
+				Connection connection,
+				Function<String, Serializable> convertToPk,
+				BiFunction<String[], Criteria, Criteria> inPk,
+				SearchFilter searchFilter,
+				QueryFilter<T> queryFilter,
+				ReportFactory<T> reportFactory) throws SQLException {
+			super(manifest, connection, convertToPk, inPk, searchFilter, queryFilter, reportFactory, CachedHibernateBench::configure);
+			sessionFactory.getStatistics().setStatisticsEnabled(true);
+		}
+
+		private static void configure(Configuration configuration) {
+			configuration.setProperty("hibernate.cache.use_second_level_cache", "true");
+			configuration.setProperty("hibernate.cache.use_query_cache", "true");
+			configuration.setProperty("hibernate.cache.region.factory_class", "org.hibernate.cache.ehcache.EhCacheRegionFactory");
+			configuration.setProperty("net.sf.ehcache.configurationResourceName", "/ehcache_hibernate.xml");
+			configuration.setProperty("hibernate.generate_statistics", "true");
+		}
+
+		//native statements invalidate all cached entries and tables, but outside of a transaction
+		//invalidation is never completed and query results would be considered stale from then on
+		private void execute(String... sql) {
+			Session current = openSession();
+			try {
+				Transaction tx = current.beginTransaction();
+				for (String s : sql) {
+					current.createSQLQuery(s).executeUpdate();
+				}
+				tx.commit();
+			} finally {
+				current.close();
+			}
+		}
+
+		@Override
+		public void clean() {
+			execute(
+					"DELETE FROM \"Simple\".\"Post\"",
+					"DELETE FROM \"StandardRelations\".\"Invoice\"",
+					"DELETE FROM \"ComplexRelations\".\"BankScrape\"");
+		}
+
+		@Override
+		public void analyze() {
+			execute("ANALYZE");
+		}
+
+		@Override
+		public Map<String, Long> cacheStatistics() {
+			Statistics stats = sessionFactory.getStatistics();
+			Map<String, Long> result = new LinkedHashMap<>();
+			result.put("second_level_hits", stats.getSecondLevelCacheHitCount());
+			result.put("second_level_misses", stats.getSecondLevelCacheMissCount());
+			result.put("second_level_puts", stats.getSecondLevelCachePutCount());
+			result.put("query_hits", stats.getQueryCacheHitCount());
+			result.put("query_misses", stats.getQueryCacheMissCount());
+			result.put("query_puts", stats.getQueryCachePutCount());
+			return result;
+		}
+
+		//timestamp of a session is taken when it's opened and cached entries written after that are considered stale.
+		//instead of a single long lived session, every operation runs in its own as it would within a web request
+		private Session openSession() {
+			return sessionFactory.withOptions()
+					.noInterceptor()
+					.flushBeforeCompletion(true)
+					.autoJoinTransactions(false)
+					.clearEventListeners()
+					.connection(connection).openSession();
+		}
+
+		@Override
+		public List<T> searchSubset(int i) {
+			Session current = openSession();
+			try {
+				return searchFilter.applyFilter(i, current.createCriteria(manifest)).setCacheable(true).list();
+			} finally {
+				current.close();
+			}
+		}
+
+		@Override
+		public T findSingle(String uri) {
+			Session current = openSession();
+			try {
+				return current.get(manifest, convertToPk.apply(uri));
+			} finally {
+				current.close();
+			}
+		}
+
+		@Override
+		public List<T> findMany(String[] ids) {
+			Session current = openSession();
+			try {
+				return inPk.apply(ids, current.createCriteria(manifest)).setCacheable(true).list();
+			} finally {
+				current.close();
+			}
+		}
+
+		@Override
+		public void insert(Collection<T> values) {
+			Session current = openSession();
+			try {
+				Transaction tx = current.beginTransaction();
+				for (T p : values) {
+					current.save(p);
+				}
+				tx.commit();
+			} finally {
+				current.close();
+			}
+		}
+
+		@Override
+		public void update(Collection<T> values) {
+			Session current = openSession();
+			try {
+				Transaction tx = current.beginTransaction();
+				for (T p : values) {
+					current.saveOrUpdate(p);
+				}
+				tx.commit();
+			} finally {
+				current.close();
+			}
+		}
+
+		@Override
+		public void insert(T value) {
+			insert(Collections.singletonList(value));
+		}
+
+		@Override
+		public void update(T value) {
+			update(Collections.singletonList(value));
+		}
+
+		@Override
+		public Report<T> report(int i) {
+			Session current = openSession();
+			try {
+				return reportFactory.createReport(i, current, true);
+			} finally {
+				current.close();
+			}
+		}
+	}
+
+	//entities record their own changes (see DirtyTracker) and Hibernate asks them which properties are dirty,
+	//instead of comparing every property with the snapshot taken on load or save.
+	//dynamic update is enabled for tracked classes, so only changed columns are written and unchanged items are skipped
+	static class DirtyTrackingHibernateBench<T extends AggregateRoot> extends GenericHibernateBench<T> {
+		private final Function<T, List<?>> children;
+
+		public DirtyTrackingHibernateBench(
+				Class<T> manifest,
+				Connection connection,
+				Function<String, Serializable> convertToPk,
+				BiFunction<String[], Criteria, Criteria> inPk,
+				SearchFilter searchFilter,
+				QueryFilter<T> queryFilter,
+				ReportFactory<T> reportFactory,
+				Function<T, List<?>> children) throws SQLException {
+			super(
+					manifest,
+					connection,
+					convertToPk,
+					inPk,
+					searchFilter,
+					queryFilter,
+					reportFactory,
+					DirtyTrackingHibernateBench::configure,
+					new BootstrapServiceRegistryBuilder().applyIntegrator(new TrackingIntegrator()).build());
+			this.children = children;
+		}
+
+		private static void configure(Configuration configuration) {
+			configuration.getProperties().put(AvailableSettings.CUSTOM_ENTITY_DIRTINESS_STRATEGY, new TrackingStrategy());
+		}
+
+		//Hibernate calls reset and find for every entity. when dirty properties are not found,
+		//untracked entities (eg. complex model) are dirty checked against the snapshot as usual
+		private static class TrackingStrategy implements CustomEntityDirtinessStrategy {
+			@Override
+			public boolean canDirtyCheck(Object entity, EntityPersister persister, Session session) {
+				return entity instanceof DirtyTracker;
+			}
+
+			@Override
+			public boolean isDirty(Object entity, EntityPersister persister, Session session) {
+				return ((DirtyTracker) entity).hasChanges();
+			}
+
+			@Override
+			public void resetDirty(Object entity, EntityPersister persister, Session session) {
+				if (entity instanceof DirtyTracker) {
+					((DirtyTracker) entity).clearChanges();
+				}
+			}
+
+			@Override
+			public void findDirty(Object entity, EntityPersister persister, Session session, DirtyCheckContext dirtyCheckContext) {
+				if (entity instanceof DirtyTracker) {
+					DirtyTracker tracker = (DirtyTracker) entity;
+					dirtyCheckContext.doDirtyChecking(attribute -> tracker.isChanged(attribute.getName()));
+				}
+			}
+		}
+
+		//Hibernate populates entities through setters, so changes recorded while loading are cleared
+		private static class TrackingIntegrator implements Integrator {
+			@Override
+			public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+				for (PersistentClass binding : metadata.getEntityBindings()) {
+					if (DirtyTracker.class.isAssignableFrom(binding.getMappedClass())) {
+						binding.setDynamicUpdate(true);
+					}
+				}
+				serviceRegistry.getService(EventListenerRegistry.class).appendListeners(EventType.POST_LOAD, event -> {
+					if (event.getEntity() instanceof DirtyTracker) {
+						((DirtyTracker) event.getEntity()).clearChanges();
+					}
+				});
+			}
+
+			@Override
+			public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+			}
+		}
+
+		//Hibernate resets dirtiness only after update. changes are cleared once save has captured the state,
+		//otherwise flush would find new aggregates dirty and update them right after insert
+		private void clearChanges(T value) {
+			if (value instanceof DirtyTracker) {
+				((DirtyTracker) value).clearChanges();
+			}
+			for (Object child : children.apply(value)) {
+				if (child instanceof DirtyTracker) {
+					((DirtyTracker) child).clearChanges();
+				}
+			}
+		}
+
+		@Override
+		public void insert(Collection<T> values) {
+			try {
+				connection.setAutoCommit(false);
+				for (T p : values) {
+					session.save(p);
+					clearChanges(p);
+				}
+				session.flush();
+				connection.commit();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public void insert(T value) {
+			try {
+				connection.setAutoCommit(true);
+				session.save(value);
+				clearChanges(value);
+				session.flush();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,154 @@
+package hr.ngs.benchmark.benches;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+
+//minimal pull parser for nested json arrays of strings, numbers and nulls, as produced by json_agg(json_build_array(...)).
+//values are decoded straight from the reader, without building an intermediate tree
+final class JsonArrayReader {
+	private final Reader reader;
+	private final StringBuilder token = new StringBuilder();
+	private int peeked = -2;
+
+	JsonArrayReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	public void startArray() throws IOException {
+		expect('[');
+	}
+
+	public void endArray() throws IOException {
+		expect(']');
+	}
+
+	//consumes separator between array elements; returns false and consumes closing bracket at the end of an array
+	public boolean hasNext() throws IOException {
+		int c = peekSkipWhitespace();
+		if (c == ']') {
+			read();
+			return false;
+		}
+		if (c == ',') {
+			read();
+		}
+		return true;
+	}
+
+	public String readString() throws IOException {
+		int c = beginValue();
+		if (c == 'n') {
+			readNull();
+			return null;
+		}
+		expect('"');
+		token.setLength(0);
+		while (true) {
+			c = read();
+			if (c == '"') {
+				return token.toString();
+			}
+			if (c != '\\') {
+				token.append((char) c);
+				continue;
+			}
+			c = read();
+			switch (c) {
+				case 'b':
+					token.append('\b');
+					break;
+				case 'f':
+					token.append('\f');
+					break;
+				case 'n':
+					token.append('\n');
+					break;
+				case 'r':
+					token.append('\r');
+					break;
+				case 't':
+					token.append('\t');
+					break;
+				case 'u':
+					char[] hex = new char[]{(char) read(), (char) read(), (char) read(), (char) read()};
+					token.append((char) Integer.parseInt(new String(hex), 16));
+					break;
+				default:
+					token.append((char) c);
+			}
+		}
+	}
+
+	public BigDecimal readDecimal() throws IOException {
+		String number = readNumber();
+		return number == null ? null : new BigDecimal(number);
+	}
+
+	public int readInt() throws IOException {
+		return Integer.parseInt(readNumber());
+	}
+
+	private String readNumber() throws IOException {
+		int c = beginValue();
+		if (c == 'n') {
+			readNull();
+			return null;
+		}
+		token.setLength(0);
+		while (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || c >= '0' && c <= '9') {
+			token.append((char) read());
+			c = peek();
+		}
+		return token.toString();
+	}
+
+	private int beginValue() throws IOException {
+		int c = peekSkipWhitespace();
+		if (c == ',') {
+			read();
+			c = peekSkipWhitespace();
+		}
+		return c;
+	}
+
+	private void readNull() throws IOException {
+		expect('n');
+		expect('u');
+		expect('l');
+		expect('l');
+	}
+
+	private void expect(char expected) throws IOException {
+		peekSkipWhitespace();
+		int c = read();
+		if (c != expected) {
+			throw new IOException("Expecting '" + expected + "'. Found: " + (c == -1 ? "end of input" : "'" + (char) c + "'"));
+		}
+	}
+
+	private int peekSkipWhitespace() throws IOException {
+		int c = peek();
+		while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+			read();
+			c = peek();
+		}
+		return c;
+	}
+
+	private int peek() throws IOException {
+		if (peeked == -2) {
+			peeked = reader.read();
+		}
+		return peeked;
+	}
+
+	private int read() throws IOException {
+		int c = peek();
+		if (c == -1) {
+			throw new IOException("Unexpected end of json");
+		}
+		peeked = -2;
+		return c;
+	}
+}
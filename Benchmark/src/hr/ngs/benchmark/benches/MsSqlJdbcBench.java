@@ -9,15 +9,19 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public abstract class MsSqlJdbcBench {
 
 	public static void runBench(String connectionString, BenchType type, int data) throws Exception {
+		setup(connectionString, type).run(data);
+	}
+
+	public static BenchSetup<?> setup(String connectionString, BenchType type) throws Exception {
 		switch (type) {
 			case Simple:
 				Bench<Post> simpleBench = new MsSqlJdbcSimpleBench(connectionString);
-				Main.runBenchmark(Post.class, simpleBench, Factories.newSimple(), Factories.updateSimple(), data);
-				break;
+				return new BenchSetup<>(Post.class, simpleBench, Factories.newSimple(), Factories.updateSimple());
 			default:
 				throw new UnsupportedOperationException();
 		}
@@ -28,7 +32,7 @@ public abstract class MsSqlJdbcBench {
 		private final LocalDate today;
 
 		public MsSqlJdbcSimpleBench(String connectionString) throws SQLException {
-			connection = DriverManager.getConnection(connectionString);
+			connection = StatementCache.open(connectionString);
 			this.today = Factories.TODAY;
 		}
 
@@ -54,6 +58,15 @@ public abstract class MsSqlJdbcBench {
 			}
 		}
 
+		@Override
+		public void close() {
+			try {
+				connection.close();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
 		@Override
 		public List<Post> searchAll() {
 			try {
@@ -71,6 +84,26 @@ public abstract class MsSqlJdbcBench {
 			}
 		}
 
+		//with adaptive response buffering the driver reads rows from the network as they are consumed
+		@Override
+		public int searchAll(int fetchSize, Consumer<Post> consumer) {
+			try {
+				int count = 0;
+				try (PreparedStatement statement = connection.prepareStatement("SELECT id, title, created FROM Post")) {
+					statement.setFetchSize(fetchSize);
+					try (ResultSet rs = statement.executeQuery()) {
+						while (rs.next()) {
+							consumer.accept(new Post(UUID.fromString(rs.getString(1)), rs.getString(2), rs.getDate(3).toLocalDate()));
+							count++;
+						}
+					}
+				}
+				return count;
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
 		@Override
 		public List<Post> searchSubset(int i) {
 			try {
@@ -0,0 +1,129 @@
+package hr.ngs.benchmark.benches;
+
+import hr.ngs.benchmark.*;
+import hr.ngs.benchmark.model.Invoice;
+import hr.ngs.benchmark.model.InvoiceItem;
+import hr.ngs.benchmark.model.Post;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+//same as PostgresJdbcBench, but bulk insert is streamed through COPY instead of batched inserts
+public abstract class PostgresCopyBench {
+	public static void runBench(String connectionString, BenchType type, boolean binary, int data) throws Exception {
+		setup(connectionString, type, binary).run(data);
+	}
+
+	public static BenchSetup<?> setup(String connectionString, BenchType type, boolean binary) throws Exception {
+		switch (type) {
+			case Simple:
+				Bench<Post> simpleBench = new PostgresCopySimpleBench(connectionString, binary);
+				return new BenchSetup<>(Post.class, simpleBench, Factories.newSimple(), Factories.updateSimple());
+			case Standard_Relations:
+				Bench<Invoice> stdBench = new PostgresCopyStandardBench(connectionString, binary);
+				return new BenchSetup<>(Invoice.class, stdBench, Factories.newStandard(), Factories.updateStandard());
+			default:
+				throw new UnsupportedOperationException();
+		}
+	}
+
+	static class PostgresCopySimpleBench extends PostgresJdbcBench.PostgresJdbcSimpleBench {
+		private final boolean binary;
+
+		public PostgresCopySimpleBench(String connectionString, boolean binary) throws SQLException {
+			super(connectionString);
+			this.binary = binary;
+		}
+
+		@Override
+		public void insert(Collection<Post> values) {
+			try {
+				CopyStream copy = CopyStream.start(connection, "\"Simple\".\"Post\"(id, title, created)", binary);
+				try {
+					for (Post it : values) {
+						copy.startRow(3);
+						copy.add(it.getId());
+						copy.add(it.getTitle());
+						copy.add(it.getCreated());
+						copy.endRow();
+					}
+					copy.finish();
+				} finally {
+					copy.cancel();
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+	}
+
+	static class PostgresCopyStandardBench extends PostgresJdbcBench.PostgresJdbcStandardBench {
+		private final boolean binary;
+
+		public PostgresCopyStandardBench(String connectionString, boolean binary) throws SQLException {
+			super(connectionString);
+			this.binary = binary;
+		}
+
+		//a single COPY can target only one table, so heads and items are streamed in two passes
+		@Override
+		public void insert(Collection<Invoice> values) {
+			try {
+				connection.setAutoCommit(false);
+				CopyStream head = CopyStream.start(connection, "\"StandardRelations\".\"Invoice\"(number, \"dueDate\", total, paid, canceled, version, tax, reference, \"createdAt\", \"modifiedAt\")", binary);
+				try {
+					for (Invoice it : values) {
+						head.startRow(10);
+						head.add(it.getNumber());
+						head.add(it.getDueDate());
+						head.add(it.getTotal());
+						head.add(it.getPaid() != null ? it.getPaid().toLocalDateTime() : null);
+						head.add(it.isCanceled());
+						head.add(it.getVersion());
+						head.add(it.getTax());
+						head.add(it.getReference());
+						head.add(it.getCreatedAt().toLocalDateTime());
+						head.add(it.getModifiedAt().toLocalDateTime());
+						head.endRow();
+					}
+					head.finish();
+				} finally {
+					head.cancel();
+				}
+				CopyStream child = CopyStream.start(connection, "\"StandardRelations\".\"Item\"(\"Invoicenumber\", \"Index\", product, cost, quantity, \"taxGroup\", discount)", binary);
+				try {
+					for (Invoice it : values) {
+						List<InvoiceItem> items = it.getItems();
+						for (int i = 0; i < items.size(); i++) {
+							InvoiceItem det = items.get(i);
+							child.startRow(7);
+							child.add(it.getNumber());
+							child.add(i);
+							child.add(det.getProduct());
+							child.add(det.getCost());
+							child.add(det.getQuantity());
+							child.add(det.getTaxGroup());
+							child.add(det.getDiscount());
+							child.endRow();
+						}
+					}
+					child.finish();
+				} finally {
+					child.cancel();
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		//loop inserts stay on the batch path so only bulk_insert differs from Jdbc_Postgres
+		@Override
+		public void insert(Invoice value) {
+			super.insert(Collections.singletonList(value));
+		}
+	}
+}
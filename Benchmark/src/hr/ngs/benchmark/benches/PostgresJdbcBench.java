@@ -1,40 +1,102 @@
 package hr.ngs.benchmark.benches;
 
 import hr.ngs.benchmark.*;
+import hr.ngs.benchmark.model.Account;
+import hr.ngs.benchmark.model.BankScrape;
+import hr.ngs.benchmark.model.Currency;
 import hr.ngs.benchmark.model.Invoice;
 import hr.ngs.benchmark.model.InvoiceItem;
 import hr.ngs.benchmark.model.Post;
+import hr.ngs.benchmark.model.Transaction;
 
+import java.net.URI;
 import java.sql.*;
 import java.sql.Date;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
+import java.util.function.Consumer;
 
 public abstract class PostgresJdbcBench  {
 	public static void runBench(String connectionString, BenchType type, int data) throws Exception {
+		setup(connectionString, type).run(data);
+	}
+
+	public static BenchSetup<?> setup(String connectionString, BenchType type) throws Exception {
+		return setup(connectionString, type, false);
+	}
+
+	//decode cost is measured only by Simple and Standard_Relations, in passes separate from the benchmarked ones
+	public static BenchSetup<?> setup(String connectionString, BenchType type, boolean measureDecode) throws Exception {
 		switch (type) {
 			case Simple:
-				Bench<Post> simpleBench = new PostgresJdbcSimpleBench(connectionString);
-				Main.runBenchmark(Post.class, simpleBench, Factories.newSimple(), Factories.updateSimple(), data);
-				break;
+				Bench<Post> simpleBench = new PostgresJdbcSimpleBench(connectionString, measureDecode);
+				return new BenchSetup<>(Post.class, simpleBench, Factories.newSimple(), Factories.updateSimple());
 			case Standard_Relations:
-				Bench<Invoice> stdBench = new PostgresJdbcStandardBench(connectionString);
-				Main.runBenchmark(Invoice.class, stdBench, Factories.newStandard(), Factories.updateStandard(), data);
-				break;
+				Bench<Invoice> stdBench = new PostgresJdbcStandardBench(connectionString, measureDecode);
+				return new BenchSetup<>(Invoice.class, stdBench, Factories.newStandard(), Factories.updateStandard());
+			case Complex_Relations:
+				Bench<BankScrape> cplBench = new PostgresJdbcComplexBench(connectionString);
+				return new BenchSetup<>(BankScrape.class, cplBench, Factories.newComplex(), Factories.updateComplex());
+			case Standard_Objects:
+				Bench<Invoice> stdObjBench = new PostgresJdbcStandardObjectsBench(connectionString);
+				return new BenchSetup<>(Invoice.class, stdObjBench, Factories.newStandard(), Factories.updateStandard());
+			case Complex_Objects:
+				Bench<BankScrape> cplObjBench = new PostgresJdbcComplexObjectsBench(connectionString);
+				return new BenchSetup<>(BankScrape.class, cplObjBench, Factories.newComplex(), Factories.updateComplex());
 			default:
 				throw new UnsupportedOperationException();
 		}
 	}
 
+	//streamed search all is not instrumented; instead the same queries are read through cursors without converting rows
+	//and compared with streaming which converts them. fastest of a few passes is used for both, to reduce noise
+	private static long timeDecode(Connection connection, int fetchSize, Runnable streamAll, String... queries) {
+		long fetchOnly = Long.MAX_VALUE;
+		long converted = Long.MAX_VALUE;
+		try {
+			for (int i = 0; i < 3; i++) {
+				connection.setAutoCommit(false);
+				long start = System.nanoTime();
+				for (String sql : queries) {
+					try (PreparedStatement statement = connection.prepareStatement(sql)) {
+						statement.setFetchSize(fetchSize);
+						try (ResultSet rs = statement.executeQuery()) {
+							while (rs.next()) {
+								//only fetch
+							}
+						}
+					}
+				}
+				fetchOnly = Math.min(fetchOnly, System.nanoTime() - start);
+				connection.commit();
+				connection.setAutoCommit(true);
+				start = System.nanoTime();
+				streamAll.run();
+				converted = Math.min(converted, System.nanoTime() - start);
+			}
+		} catch (SQLException ex) {
+			throw new RuntimeException(ex);
+		}
+		return Math.max(0, converted - fetchOnly);
+	}
+
 	static class PostgresJdbcSimpleBench implements Bench<Post> {
-		private final Connection connection;
+		private static final String STREAM_ALL = "SELECT id, title, created FROM \"Simple\".\"Post\"";
+
+		protected final Connection connection;
 		private final LocalDate today;
+		private final boolean measureDecode;
 
 		public PostgresJdbcSimpleBench(String connectionString) throws SQLException {
-			connection = DriverManager.getConnection(connectionString);
+			this(connectionString, false);
+		}
+
+		public PostgresJdbcSimpleBench(String connectionString, boolean measureDecode) throws SQLException {
+			connection = StatementCache.open(connectionString);
 			this.today = Factories.TODAY;
+			this.measureDecode = measureDecode;
 		}
 
 		@Override
@@ -59,6 +121,15 @@ public abstract class PostgresJdbcBench  {
 			}
 		}
 
+		@Override
+		public void close() {
+			try {
+				connection.close();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
 		@Override
 		public List<Post> searchAll() {
 			try {
@@ -76,6 +147,34 @@ public abstract class PostgresJdbcBench  {
 			}
 		}
 
+		//cursor based fetching is only used by the driver outside of autocommit
+		@Override
+		public int searchAll(int fetchSize, Consumer<Post> consumer) {
+			try {
+				connection.setAutoCommit(false);
+				int count = 0;
+				try (PreparedStatement statement = connection.prepareStatement(STREAM_ALL)) {
+					statement.setFetchSize(fetchSize);
+					try (ResultSet rs = statement.executeQuery()) {
+						while (rs.next()) {
+							consumer.accept(new Post((UUID) rs.getObject(1), rs.getString(2), rs.getDate(3).toLocalDate()));
+							count++;
+						}
+					}
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+				return count;
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public long decodeNanos(int fetchSize) {
+			return measureDecode ? timeDecode(connection, fetchSize, () -> searchAll(fetchSize, it -> {}), STREAM_ALL) : -1;
+		}
+
 		@Override
 		public List<Post> searchSubset(int i) {
 			try {
@@ -272,10 +371,19 @@ public abstract class PostgresJdbcBench  {
 	}
 
 	static class PostgresJdbcStandardBench implements Bench<Invoice> {
-		private final Connection connection;
+		private static final String STREAM_HEAD = "SELECT number, \"dueDate\", total, paid, canceled, version, tax, reference, \"createdAt\", \"modifiedAt\" FROM \"StandardRelations\".\"Invoice\" ORDER BY number";
+		private static final String STREAM_ITEMS = "SELECT \"Invoicenumber\", product, cost, quantity, \"taxGroup\", discount FROM \"StandardRelations\".\"Item\" ORDER BY \"Invoicenumber\", \"Index\"";
+
+		protected final Connection connection;
+		private final boolean measureDecode;
 
 		public PostgresJdbcStandardBench(String connectionString) throws SQLException {
-			connection = DriverManager.getConnection(connectionString);
+			this(connectionString, false);
+		}
+
+		public PostgresJdbcStandardBench(String connectionString, boolean measureDecode) throws SQLException {
+			connection = StatementCache.open(connectionString);
+			this.measureDecode = measureDecode;
 		}
 
 		@Override
@@ -301,6 +409,15 @@ public abstract class PostgresJdbcBench  {
 			}
 		}
 
+		@Override
+		public void close() {
+			try {
+				connection.close();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
 		private static Invoice executeSingle(
 				PreparedStatement stHead,
 				PreparedStatement stChild,
@@ -400,6 +517,59 @@ public abstract class PostgresJdbcBench  {
 			}
 		}
 
+		//heads and items are read through two cursors ordered by invoice number and merged as they arrive
+		@Override
+		public int searchAll(int fetchSize, Consumer<Invoice> consumer) {
+			try {
+				connection.setAutoCommit(false);
+				int count = 0;
+				try (PreparedStatement head = connection.prepareStatement(STREAM_HEAD);
+				     PreparedStatement child = connection.prepareStatement(STREAM_ITEMS)) {
+					head.setFetchSize(fetchSize);
+					child.setFetchSize(fetchSize);
+					try (ResultSet rsHead = head.executeQuery();
+					     ResultSet rsChild = child.executeQuery()) {
+						boolean hasChild = rsChild.next();
+						while (rsHead.next()) {
+							Invoice invoice = new Invoice(
+									rsHead.getString(1),
+									rsHead.getDate(2).toLocalDate(),
+									rsHead.getBigDecimal(3),
+									rsHead.getObject(4) == null ? null : rsHead.getTimestamp(4).toLocalDateTime().atOffset(ZoneOffset.UTC),
+									rsHead.getBoolean(5),
+									rsHead.getLong(6),
+									rsHead.getBigDecimal(7),
+									rsHead.getString(8),
+									rsHead.getTimestamp(9).toLocalDateTime().atOffset(ZoneOffset.UTC),
+									rsHead.getTimestamp(10).toLocalDateTime().atOffset(ZoneOffset.UTC));
+							while (hasChild && invoice.getNumber().equals(rsChild.getString(1))) {
+								invoice.getItems().add(
+										new InvoiceItem(
+												rsChild.getString(2),
+												rsChild.getBigDecimal(3),
+												rsChild.getInt(4),
+												rsChild.getBigDecimal(5),
+												rsChild.getBigDecimal(6)));
+								hasChild = rsChild.next();
+							}
+							consumer.accept(invoice);
+							count++;
+						}
+					}
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+				return count;
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public long decodeNanos(int fetchSize) {
+			return measureDecode ? timeDecode(connection, fetchSize, () -> searchAll(fetchSize, it -> {}), STREAM_HEAD, STREAM_ITEMS) : -1;
+		}
+
 		@Override
 		public List<Invoice> searchSubset(int i) {
 			try {
@@ -619,4 +789,935 @@ public abstract class PostgresJdbcBench  {
 		}
 	}
 
+	//items are stored as "StandardObjects"."Item"[] in the invoice row and converted with RecordWriter/RecordReader
+	static class PostgresJdbcStandardObjectsBench implements Bench<Invoice> {
+		private static final String SELECT_HEAD = "SELECT number, \"dueDate\", total, paid, canceled, version, tax, reference, \"createdAt\", \"modifiedAt\", items FROM \"StandardObjects\".\"Invoice\"";
+
+		protected final Connection connection;
+		private final RecordWriter writer = new RecordWriter();
+
+		public PostgresJdbcStandardObjectsBench(String connectionString) throws SQLException {
+			connection = StatementCache.open(connectionString);
+		}
+
+		@Override
+		public void clean() {
+			try {
+				Statement cleanup = connection.createStatement();
+				cleanup.execute("DELETE FROM \"StandardObjects\".\"Invoice\"");
+				cleanup.close();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public void analyze() {
+			try {
+				Statement stats = connection.createStatement();
+				stats.execute("ANALYZE");
+				stats.close();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public void close() {
+			try {
+				connection.close();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		private static Invoice readInvoice(ResultSet rs) throws SQLException {
+			Invoice invoice = new Invoice(
+					rs.getString(1),
+					rs.getDate(2).toLocalDate(),
+					rs.getBigDecimal(3),
+					rs.getObject(4) == null ? null : rs.getTimestamp(4).toLocalDateTime().atOffset(ZoneOffset.UTC),
+					rs.getBoolean(5),
+					rs.getLong(6),
+					rs.getBigDecimal(7),
+					rs.getString(8),
+					rs.getTimestamp(9).toLocalDateTime().atOffset(ZoneOffset.UTC),
+					rs.getTimestamp(10).toLocalDateTime().atOffset(ZoneOffset.UTC));
+			RecordReader items = new RecordReader(rs.getString(11));
+			while (items.hasNext()) {
+				RecordReader item = items.readNested();
+				invoice.getItems().add(
+						new InvoiceItem(
+								item.readString(),
+								item.readDecimal(),
+								item.readInt(),
+								item.readDecimal(),
+								item.readDecimal()));
+				item.end();
+			}
+			items.end();
+			return invoice;
+		}
+
+		private String writeItems(List<InvoiceItem> items) {
+			writer.reset().startArray();
+			for (InvoiceItem it : items) {
+				writer.startRecord();
+				writer.writeString(it.getProduct());
+				writer.writeDecimal(it.getCost());
+				writer.writeInt(it.getQuantity());
+				writer.writeDecimal(it.getTaxGroup());
+				writer.writeDecimal(it.getDiscount());
+				writer.endRecord();
+			}
+			writer.endArray();
+			return writer.toString();
+		}
+
+		private static Invoice executeSingle(PreparedStatement statement) throws SQLException {
+			try (ResultSet rs = statement.executeQuery()) {
+				return rs.next() ? readInvoice(rs) : null;
+			}
+		}
+
+		private static List<Invoice> executeCollection(PreparedStatement statement) throws SQLException {
+			List<Invoice> result = new ArrayList<>();
+			try (ResultSet rs = statement.executeQuery()) {
+				while (rs.next()) {
+					result.add(readInvoice(rs));
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public List<Invoice> searchAll() {
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " ORDER BY number")) {
+					return executeCollection(statement);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public int searchAll(int fetchSize, Consumer<Invoice> consumer) {
+			try {
+				connection.setAutoCommit(false);
+				int count = 0;
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD)) {
+					statement.setFetchSize(fetchSize);
+					try (ResultSet rs = statement.executeQuery()) {
+						while (rs.next()) {
+							consumer.accept(readInvoice(rs));
+							count++;
+						}
+					}
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+				return count;
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public List<Invoice> searchSubset(int i) {
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE version >= ? AND version <= ? ORDER BY number")) {
+					statement.setInt(1, i);
+					statement.setInt(2, i + 10);
+					return executeCollection(statement);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		public Invoice findSingle(String uri) {
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE number = ?")) {
+					statement.setString(1, uri);
+					return executeSingle(statement);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public List<Invoice> findMany(String[] ids) {
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE number = ANY(?) ORDER BY number")) {
+					statement.setArray(1, connection.createArrayOf("varchar", ids));
+					return executeCollection(statement);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		private void bind(PreparedStatement statement, Invoice it) throws SQLException {
+			statement.setString(1, it.getNumber());
+			statement.setDate(2, Date.valueOf(it.getDueDate()));
+			statement.setBigDecimal(3, it.getTotal());
+			statement.setTimestamp(4, it.getPaid() != null ? Timestamp.valueOf(it.getPaid().toLocalDateTime()) : null);
+			statement.setBoolean(5, it.isCanceled());
+			statement.setLong(6, it.getVersion());
+			statement.setBigDecimal(7, it.getTax());
+			statement.setString(8, it.getReference());
+			statement.setTimestamp(9, Timestamp.valueOf(it.getCreatedAt().toLocalDateTime()));
+			statement.setTimestamp(10, Timestamp.valueOf(it.getModifiedAt().toLocalDateTime()));
+			statement.setString(11, writeItems(it.getItems()));
+		}
+
+		@Override
+		public void insert(Collection<Invoice> values) {
+			try {
+				connection.setAutoCommit(false);
+				try (PreparedStatement statement = connection.prepareStatement("INSERT INTO \"StandardObjects\".\"Invoice\"(number, \"dueDate\", total, paid, canceled, version, tax, reference, \"createdAt\", \"modifiedAt\", items) VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?::\"StandardObjects\".\"Item\"[])")) {
+					for (Invoice it : values) {
+						bind(statement, it);
+						statement.addBatch();
+					}
+					statement.executeBatch();
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		//whole item array is replaced, so there is no need to look up existing items
+		@Override
+		public void update(Collection<Invoice> values) {
+			try {
+				connection.setAutoCommit(false);
+				try (PreparedStatement statement = connection.prepareStatement("UPDATE \"StandardObjects\".\"Invoice\" SET number = ?, \"dueDate\" = ?, total = ?, paid = ?, canceled = ?, version = ?, tax = ?, reference = ?, \"createdAt\" = ?, \"modifiedAt\" = ?, items = ?::\"StandardObjects\".\"Item\"[] WHERE number = ?")) {
+					for (Invoice it : values) {
+						it.setModifiedAt(OffsetDateTime.now(ZoneOffset.UTC));
+						bind(statement, it);
+						statement.setString(12, it.getURI());
+						statement.addBatch();
+					}
+					statement.executeBatch();
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public void insert(Invoice value) {
+			insert(Collections.singletonList(value));
+		}
+
+		@Override
+		public void update(Invoice value) {
+			update(Collections.singletonList(value));
+		}
+
+		@Override
+		public List<Invoice> queryAll() {
+			return null;
+		}
+
+		@Override
+		public List<Invoice> querySubset(int i) {
+			return null;
+		}
+
+		@Override
+		public Report<Invoice> report(int i) {
+			Report<Invoice> result = new Report<>();
+			String[] ids = new String[]{Integer.toString(i), Integer.toString(i + 2), Integer.toString(i + 5), Integer.toString(i + 7)};
+			int start = i;
+			int end = i + 6;
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE number = ?")) {
+					statement.setString(1, Integer.toString(i));
+					result.findOne = executeSingle(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE number = ANY(?) ORDER BY number")) {
+					statement.setArray(1, connection.createArrayOf("varchar", ids));
+					result.findMany = executeCollection(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE version >= ? ORDER BY \"createdAt\" LIMIT 1")) {
+					statement.setInt(1, start);
+					result.findFirst = executeSingle(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE version <= ? ORDER BY \"createdAt\" DESC LIMIT 1")) {
+					statement.setInt(1, end);
+					result.findLast = executeSingle(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE version >= ? AND version <= ? ORDER BY \"createdAt\", number LIMIT 5")) {
+					statement.setInt(1, start);
+					statement.setInt(2, end);
+					result.topFive = executeCollection(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE version >= ? AND version <= ? ORDER BY \"createdAt\" DESC, number LIMIT 10")) {
+					statement.setInt(1, start);
+					statement.setInt(2, end);
+					result.lastTen = executeCollection(statement);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+			return result;
+		}
+	}
+
+	static class PostgresJdbcComplexBench implements Bench<BankScrape> {
+		private static final String SELECT_HEAD = "SELECT id, website, at, info, \"externalId\", ranking, tags, \"createdAt\" FROM \"ComplexRelations\".\"BankScrape\"";
+		private static final String SELECT_ACCOUNT = "SELECT \"BankScrapeid\", \"Index\", balance, number, name, notes FROM \"ComplexRelations\".\"Account\"";
+		private static final String ORDER_ACCOUNT = " ORDER BY \"BankScrapeid\", \"Index\"";
+		private static final String SELECT_TRANSACTION = "SELECT \"AccountBankScrapeid\", \"AccountIndex\", \"Index\", date, description, currency, amount FROM \"ComplexRelations\".\"Transaction\"";
+		private static final String ORDER_TRANSACTION = " ORDER BY \"AccountBankScrapeid\", \"AccountIndex\", \"Index\"";
+		private static final String INSERT_ACCOUNT = "INSERT INTO \"ComplexRelations\".\"Account\"(\"BankScrapeid\", \"Index\", balance, number, name, notes) VALUES(?, ?, ?, ?, ?, ?)";
+		private static final String INSERT_TRANSACTION = "INSERT INTO \"ComplexRelations\".\"Transaction\"(\"AccountBankScrapeid\", \"AccountIndex\", \"Index\", date, description, currency, amount) VALUES(?, ?, ?, ?, ?, ?::\"Complex\".\"Currency\", ?)";
+
+		protected final Connection connection;
+
+		public PostgresJdbcComplexBench(String connectionString) throws SQLException {
+			connection = StatementCache.open(connectionString);
+		}
+
+		@Override
+		public void clean() {
+			try {
+				Statement cleanup = connection.createStatement();
+				cleanup.execute("DELETE FROM \"ComplexRelations\".\"Transaction\"");
+				cleanup.execute("DELETE FROM \"ComplexRelations\".\"Account\"");
+				cleanup.execute("DELETE FROM \"ComplexRelations\".\"BankScrape\"");
+				cleanup.close();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public void analyze() {
+			try {
+				Statement stats = connection.createStatement();
+				stats.execute("ANALYZE");
+				stats.close();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public void close() {
+			try {
+				connection.close();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		private static OffsetDateTime readTimestamp(ResultSet rs, int index) throws SQLException {
+			Timestamp value = rs.getTimestamp(index);
+			return value == null ? null : value.toLocalDateTime().atOffset(ZoneOffset.UTC);
+		}
+
+		@SuppressWarnings("unchecked")
+		static BankScrape readHead(ResultSet rs) throws SQLException {
+			Map<String, String> info = (Map<String, String>) rs.getObject(4);
+			Array tags = rs.getArray(7);
+			return new BankScrape(
+					rs.getInt(1),
+					URI.create(rs.getString(2)),
+					readTimestamp(rs, 3),
+					info != null ? info : new HashMap<>(),
+					rs.getString(5),
+					rs.getInt(6),
+					tags != null ? new HashSet<>(Arrays.asList((String[]) tags.getArray())) : new HashSet<>(),
+					readTimestamp(rs, 8));
+		}
+
+		private static Account readAccount(ResultSet rs) throws SQLException {
+			return new Account(rs.getBigDecimal(3), rs.getString(4), rs.getString(5), rs.getString(6));
+		}
+
+		private static Transaction readTransaction(ResultSet rs) throws SQLException {
+			String currency = rs.getString(6);
+			return new Transaction(
+					rs.getDate(4).toLocalDate(),
+					rs.getString(5),
+					currency != null ? Currency.valueOf(currency) : null,
+					rs.getBigDecimal(7));
+		}
+
+		//each level is read once, ordered by its parent key and index, so children are appended by position
+		//without searching through the already loaded accounts
+		private List<BankScrape> executeCollection(PreparedStatement head, boolean all) throws SQLException {
+			List<BankScrape> result = new ArrayList<>();
+			Map<Integer, BankScrape> map = new HashMap<>();
+			try (ResultSet rs = head.executeQuery()) {
+				while (rs.next()) {
+					BankScrape scrape = readHead(rs);
+					result.add(scrape);
+					map.put(scrape.getId(), scrape);
+				}
+			}
+			if (map.isEmpty()) {
+				return result;
+			}
+			try (PreparedStatement accounts = connection.prepareStatement(SELECT_ACCOUNT + (all ? "" : " WHERE \"BankScrapeid\" = ANY(?)") + ORDER_ACCOUNT);
+			     PreparedStatement transactions = connection.prepareStatement(SELECT_TRANSACTION + (all ? "" : " WHERE \"AccountBankScrapeid\" = ANY(?)") + ORDER_TRANSACTION)) {
+				if (!all) {
+					Array ids = connection.createArrayOf("int4", map.keySet().toArray(new Integer[map.size()]));
+					accounts.setArray(1, ids);
+					transactions.setArray(1, ids);
+				}
+				try (ResultSet rs = accounts.executeQuery()) {
+					while (rs.next()) {
+						map.get(rs.getInt(1)).addAccount(readAccount(rs));
+					}
+				}
+				try (ResultSet rs = transactions.executeQuery()) {
+					while (rs.next()) {
+						map.get(rs.getInt(1)).getAccounts().get(rs.getInt(2)).addTransaction(readTransaction(rs));
+					}
+				}
+			}
+			return result;
+		}
+
+		private BankScrape executeSingle(PreparedStatement head) throws SQLException {
+			List<BankScrape> result = executeCollection(head, false);
+			return result.isEmpty() ? null : result.get(0);
+		}
+
+		@Override
+		public List<BankScrape> searchAll() {
+			try {
+				try (PreparedStatement head = connection.prepareStatement(SELECT_HEAD + " ORDER BY id")) {
+					return executeCollection(head, true);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		//heads, accounts and transactions are read through three cursors ordered by scrape id and merged as they arrive
+		@Override
+		public int searchAll(int fetchSize, Consumer<BankScrape> consumer) {
+			try {
+				connection.setAutoCommit(false);
+				int count = 0;
+				try (PreparedStatement head = connection.prepareStatement(SELECT_HEAD + " ORDER BY id");
+				     PreparedStatement accounts = connection.prepareStatement(SELECT_ACCOUNT + ORDER_ACCOUNT);
+				     PreparedStatement transactions = connection.prepareStatement(SELECT_TRANSACTION + ORDER_TRANSACTION)) {
+					head.setFetchSize(fetchSize);
+					accounts.setFetchSize(fetchSize);
+					transactions.setFetchSize(fetchSize);
+					try (ResultSet rsHead = head.executeQuery();
+					     ResultSet rsAccount = accounts.executeQuery();
+					     ResultSet rsTransaction = transactions.executeQuery()) {
+						boolean hasAccount = rsAccount.next();
+						boolean hasTransaction = rsTransaction.next();
+						while (rsHead.next()) {
+							BankScrape scrape = readHead(rsHead);
+							while (hasAccount && rsAccount.getInt(1) == scrape.getId()) {
+								scrape.addAccount(readAccount(rsAccount));
+								hasAccount = rsAccount.next();
+							}
+							while (hasTransaction && rsTransaction.getInt(1) == scrape.getId()) {
+								scrape.getAccounts().get(rsTransaction.getInt(2)).addTransaction(readTransaction(rsTransaction));
+								hasTransaction = rsTransaction.next();
+							}
+							consumer.accept(scrape);
+							count++;
+						}
+					}
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+				return count;
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public List<BankScrape> searchSubset(int i) {
+			try {
+				try (PreparedStatement head = connection.prepareStatement(SELECT_HEAD + " WHERE \"createdAt\" >= ? AND \"createdAt\" <= ? ORDER BY id")) {
+					head.setTimestamp(1, Timestamp.valueOf(Factories.NOW.plusMinutes(i).toLocalDateTime()));
+					head.setTimestamp(2, Timestamp.valueOf(Factories.NOW.plusMinutes(i + 10).toLocalDateTime()));
+					return executeCollection(head, false);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		public BankScrape findSingle(String uri) {
+			try {
+				try (PreparedStatement head = connection.prepareStatement(SELECT_HEAD + " WHERE id = ?")) {
+					head.setInt(1, Integer.parseInt(uri));
+					return executeSingle(head);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		private Array ids(String[] uris) throws SQLException {
+			Integer[] ids = new Integer[uris.length];
+			for (int i = 0; i < uris.length; i++) {
+				ids[i] = Integer.parseInt(uris[i]);
+			}
+			return connection.createArrayOf("int4", ids);
+		}
+
+		@Override
+		public List<BankScrape> findMany(String[] ids) {
+			try {
+				try (PreparedStatement head = connection.prepareStatement(SELECT_HEAD + " WHERE id = ANY(?) ORDER BY id")) {
+					head.setArray(1, ids(ids));
+					return executeCollection(head, false);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		static void bindHead(Connection connection, PreparedStatement statement, BankScrape it) throws SQLException {
+			statement.setString(1, it.getWebsite().toString());
+			statement.setTimestamp(2, it.getAt() != null ? Timestamp.valueOf(it.getAt().toLocalDateTime()) : null);
+			statement.setObject(3, it.getInfo());
+			statement.setString(4, it.getExternalId());
+			statement.setInt(5, it.getRanking());
+			statement.setArray(6, connection.createArrayOf("varchar", it.getTags().toArray(new String[it.getTags().size()])));
+			statement.setTimestamp(7, Timestamp.valueOf(it.getCreatedAt().toLocalDateTime()));
+			statement.setInt(8, it.getId());
+		}
+
+		private static void addChildren(PreparedStatement account, PreparedStatement transaction, BankScrape it) throws SQLException {
+			for (int i = 0; i < it.getAccounts().size(); i++) {
+				Account acc = it.getAccounts().get(i);
+				account.setInt(1, it.getId());
+				account.setInt(2, i);
+				account.setBigDecimal(3, acc.getBalance());
+				account.setString(4, acc.getNumber());
+				account.setString(5, acc.getName());
+				account.setString(6, acc.getNotes());
+				account.addBatch();
+				for (int j = 0; j < acc.getTransactions().size(); j++) {
+					Transaction tran = acc.getTransactions().get(j);
+					transaction.setInt(1, it.getId());
+					transaction.setInt(2, i);
+					transaction.setInt(3, j);
+					transaction.setDate(4, Date.valueOf(tran.getDate()));
+					transaction.setString(5, tran.getDescription());
+					transaction.setString(6, tran.getCurrency() != null ? tran.getCurrency().name() : null);
+					transaction.setBigDecimal(7, tran.getAmount());
+					transaction.addBatch();
+				}
+			}
+		}
+
+		@Override
+		public void insert(Collection<BankScrape> values) {
+			try {
+				connection.setAutoCommit(false);
+				try (PreparedStatement head = connection.prepareStatement("INSERT INTO \"ComplexRelations\".\"BankScrape\"(website, at, info, \"externalId\", ranking, tags, \"createdAt\", id) VALUES(?, ?, ?::hstore, ?, ?, ?, ?, ?)");
+				     PreparedStatement account = connection.prepareStatement(INSERT_ACCOUNT);
+				     PreparedStatement transaction = connection.prepareStatement(INSERT_TRANSACTION)) {
+					for (BankScrape it : values) {
+						bindHead(connection, head, it);
+						head.addBatch();
+						addChildren(account, transaction, it);
+					}
+					head.executeBatch();
+					account.executeBatch();
+					transaction.executeBatch();
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		//heads are updated in a batch while accounts and transactions of all changed scrapes are replaced
+		//with one set based delete per table, instead of looking up existing indexes for every aggregate
+		@Override
+		public void update(Collection<BankScrape> values) {
+			try {
+				connection.setAutoCommit(false);
+				try (PreparedStatement head = connection.prepareStatement("UPDATE \"ComplexRelations\".\"BankScrape\" SET website = ?, at = ?, info = ?::hstore, \"externalId\" = ?, ranking = ?, tags = ?, \"createdAt\" = ? WHERE id = ?");
+				     PreparedStatement deleteTransactions = connection.prepareStatement("DELETE FROM \"ComplexRelations\".\"Transaction\" WHERE \"AccountBankScrapeid\" = ANY(?)");
+				     PreparedStatement deleteAccounts = connection.prepareStatement("DELETE FROM \"ComplexRelations\".\"Account\" WHERE \"BankScrapeid\" = ANY(?)");
+				     PreparedStatement account = connection.prepareStatement(INSERT_ACCOUNT);
+				     PreparedStatement transaction = connection.prepareStatement(INSERT_TRANSACTION)) {
+					Integer[] ids = new Integer[values.size()];
+					int i = 0;
+					for (BankScrape it : values) {
+						ids[i++] = Integer.parseInt(it.getURI());
+						bindHead(connection, head, it);
+						head.addBatch();
+						addChildren(account, transaction, it);
+					}
+					head.executeBatch();
+					Array array = connection.createArrayOf("int4", ids);
+					deleteTransactions.setArray(1, array);
+					deleteTransactions.executeUpdate();
+					deleteAccounts.setArray(1, array);
+					deleteAccounts.executeUpdate();
+					account.executeBatch();
+					transaction.executeBatch();
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public void insert(BankScrape value) {
+			insert(Collections.singletonList(value));
+		}
+
+		@Override
+		public void update(BankScrape value) {
+			update(Collections.singletonList(value));
+		}
+
+		@Override
+		public List<BankScrape> queryAll() {
+			return null;
+		}
+
+		@Override
+		public List<BankScrape> querySubset(int i) {
+			return null;
+		}
+
+		@Override
+		public Report<BankScrape> report(int i) {
+			Report<BankScrape> result = new Report<>();
+			Timestamp start = Timestamp.valueOf(Factories.NOW.plusMinutes(i).toLocalDateTime());
+			Timestamp end = Timestamp.valueOf(Factories.NOW.plusMinutes(i + 6).toLocalDateTime());
+			try {
+				try (PreparedStatement head = connection.prepareStatement(SELECT_HEAD + " WHERE id = ?")) {
+					head.setInt(1, i);
+					result.findOne = executeSingle(head);
+				}
+				try (PreparedStatement head = connection.prepareStatement(SELECT_HEAD + " WHERE id = ANY(?) ORDER BY id")) {
+					head.setArray(1, connection.createArrayOf("int4", new Integer[]{i, i + 2, i + 5, i + 7}));
+					result.findMany = executeCollection(head, false);
+				}
+				try (PreparedStatement head = connection.prepareStatement(SELECT_HEAD + " WHERE \"createdAt\" >= ? ORDER BY \"createdAt\" LIMIT 1")) {
+					head.setTimestamp(1, start);
+					result.findFirst = executeSingle(head);
+				}
+				try (PreparedStatement head = connection.prepareStatement(SELECT_HEAD + " WHERE \"createdAt\" <= ? ORDER BY \"createdAt\" DESC LIMIT 1")) {
+					head.setTimestamp(1, end);
+					result.findLast = executeSingle(head);
+				}
+				try (PreparedStatement head = connection.prepareStatement(SELECT_HEAD + " WHERE \"createdAt\" >= ? AND \"createdAt\" <= ? ORDER BY \"createdAt\" LIMIT 5")) {
+					head.setTimestamp(1, start);
+					head.setTimestamp(2, end);
+					result.topFive = executeCollection(head, false);
+				}
+				try (PreparedStatement head = connection.prepareStatement(SELECT_HEAD + " WHERE \"createdAt\" >= ? AND \"createdAt\" <= ? ORDER BY \"createdAt\" DESC LIMIT 10")) {
+					head.setTimestamp(1, start);
+					head.setTimestamp(2, end);
+					result.lastTen = executeCollection(head, false);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+			return result;
+		}
+	}
+
+	//accounts with their transactions are stored as "ComplexObjects"."Account"[] in the scrape row;
+	//head columns are bound and read the same way as in the relational bench
+	static class PostgresJdbcComplexObjectsBench implements Bench<BankScrape> {
+		private static final String SELECT_HEAD = "SELECT id, website, at, info, \"externalId\", ranking, tags, \"createdAt\", accounts FROM \"ComplexObjects\".\"BankScrape\"";
+
+		protected final Connection connection;
+		private final RecordWriter writer = new RecordWriter();
+
+		public PostgresJdbcComplexObjectsBench(String connectionString) throws SQLException {
+			connection = StatementCache.open(connectionString);
+		}
+
+		@Override
+		public void clean() {
+			try {
+				Statement cleanup = connection.createStatement();
+				cleanup.execute("DELETE FROM \"ComplexObjects\".\"BankScrape\"");
+				cleanup.close();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public void analyze() {
+			try {
+				Statement stats = connection.createStatement();
+				stats.execute("ANALYZE");
+				stats.close();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public void close() {
+			try {
+				connection.close();
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		private static BankScrape readScrape(ResultSet rs) throws SQLException {
+			BankScrape scrape = PostgresJdbcComplexBench.readHead(rs);
+			RecordReader accounts = new RecordReader(rs.getString(9));
+			while (accounts.hasNext()) {
+				RecordReader acc = accounts.readNested();
+				Account account = new Account(acc.readDecimal(), acc.readString(), acc.readString(), acc.readString());
+				RecordReader transactions = acc.readNested();
+				if (transactions != null) {
+					while (transactions.hasNext()) {
+						RecordReader tran = transactions.readNested();
+						LocalDate date = tran.readDate();
+						String description = tran.readString();
+						String currency = tran.readString();
+						account.addTransaction(new Transaction(date, description, currency != null ? Currency.valueOf(currency) : null, tran.readDecimal()));
+						tran.end();
+					}
+					transactions.end();
+				}
+				acc.end();
+				scrape.addAccount(account);
+			}
+			accounts.end();
+			return scrape;
+		}
+
+		private String writeAccounts(List<Account> accounts) {
+			writer.reset().startArray();
+			for (Account acc : accounts) {
+				writer.startRecord();
+				writer.writeDecimal(acc.getBalance());
+				writer.writeString(acc.getNumber());
+				writer.writeString(acc.getName());
+				writer.writeString(acc.getNotes());
+				writer.startArray();
+				for (Transaction tran : acc.getTransactions()) {
+					writer.startRecord();
+					writer.writeDate(tran.getDate());
+					writer.writeString(tran.getDescription());
+					writer.writeString(tran.getCurrency() != null ? tran.getCurrency().name() : null);
+					writer.writeDecimal(tran.getAmount());
+					writer.endRecord();
+				}
+				writer.endArray();
+				writer.endRecord();
+			}
+			writer.endArray();
+			return writer.toString();
+		}
+
+		private static BankScrape executeSingle(PreparedStatement statement) throws SQLException {
+			try (ResultSet rs = statement.executeQuery()) {
+				return rs.next() ? readScrape(rs) : null;
+			}
+		}
+
+		private static List<BankScrape> executeCollection(PreparedStatement statement) throws SQLException {
+			List<BankScrape> result = new ArrayList<>();
+			try (ResultSet rs = statement.executeQuery()) {
+				while (rs.next()) {
+					result.add(readScrape(rs));
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public List<BankScrape> searchAll() {
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " ORDER BY id")) {
+					return executeCollection(statement);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public int searchAll(int fetchSize, Consumer<BankScrape> consumer) {
+			try {
+				connection.setAutoCommit(false);
+				int count = 0;
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD)) {
+					statement.setFetchSize(fetchSize);
+					try (ResultSet rs = statement.executeQuery()) {
+						while (rs.next()) {
+							consumer.accept(readScrape(rs));
+							count++;
+						}
+					}
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+				return count;
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public List<BankScrape> searchSubset(int i) {
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE \"createdAt\" >= ? AND \"createdAt\" <= ? ORDER BY id")) {
+					statement.setTimestamp(1, Timestamp.valueOf(Factories.NOW.plusMinutes(i).toLocalDateTime()));
+					statement.setTimestamp(2, Timestamp.valueOf(Factories.NOW.plusMinutes(i + 10).toLocalDateTime()));
+					return executeCollection(statement);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		public BankScrape findSingle(String uri) {
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE id = ?")) {
+					statement.setInt(1, Integer.parseInt(uri));
+					return executeSingle(statement);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public List<BankScrape> findMany(String[] uris) {
+			try {
+				Integer[] ids = new Integer[uris.length];
+				for (int i = 0; i < uris.length; i++) {
+					ids[i] = Integer.parseInt(uris[i]);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE id = ANY(?) ORDER BY id")) {
+					statement.setArray(1, connection.createArrayOf("int4", ids));
+					return executeCollection(statement);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public void insert(Collection<BankScrape> values) {
+			try {
+				connection.setAutoCommit(false);
+				try (PreparedStatement statement = connection.prepareStatement("INSERT INTO \"ComplexObjects\".\"BankScrape\"(website, at, info, \"externalId\", ranking, tags, \"createdAt\", id, accounts) VALUES(?, ?, ?::hstore, ?, ?, ?, ?, ?, ?::\"ComplexObjects\".\"Account\"[])")) {
+					for (BankScrape it : values) {
+						PostgresJdbcComplexBench.bindHead(connection, statement, it);
+						statement.setString(9, writeAccounts(it.getAccounts()));
+						statement.addBatch();
+					}
+					statement.executeBatch();
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public void update(Collection<BankScrape> values) {
+			try {
+				connection.setAutoCommit(false);
+				try (PreparedStatement statement = connection.prepareStatement("UPDATE \"ComplexObjects\".\"BankScrape\" SET (website, at, info, \"externalId\", ranking, tags, \"createdAt\", id, accounts) = (?, ?, ?::hstore, ?, ?, ?, ?, ?, ?::\"ComplexObjects\".\"Account\"[]) WHERE id = ?")) {
+					for (BankScrape it : values) {
+						PostgresJdbcComplexBench.bindHead(connection, statement, it);
+						statement.setString(9, writeAccounts(it.getAccounts()));
+						statement.setInt(10, Integer.parseInt(it.getURI()));
+						statement.addBatch();
+					}
+					statement.executeBatch();
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public void insert(BankScrape value) {
+			insert(Collections.singletonList(value));
+		}
+
+		@Override
+		public void update(BankScrape value) {
+			update(Collections.singletonList(value));
+		}
+
+		@Override
+		public List<BankScrape> queryAll() {
+			return null;
+		}
+
+		@Override
+		public List<BankScrape> querySubset(int i) {
+			return null;
+		}
+
+		@Override
+		public Report<BankScrape> report(int i) {
+			Report<BankScrape> result = new Report<>();
+			Timestamp start = Timestamp.valueOf(Factories.NOW.plusMinutes(i).toLocalDateTime());
+			Timestamp end = Timestamp.valueOf(Factories.NOW.plusMinutes(i + 6).toLocalDateTime());
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE id = ?")) {
+					statement.setInt(1, i);
+					result.findOne = executeSingle(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE id = ANY(?) ORDER BY id")) {
+					statement.setArray(1, connection.createArrayOf("int4", new Integer[]{i, i + 2, i + 5, i + 7}));
+					result.findMany = executeCollection(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE \"createdAt\" >= ? ORDER BY \"createdAt\" LIMIT 1")) {
+					statement.setTimestamp(1, start);
+					result.findFirst = executeSingle(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE \"createdAt\" <= ? ORDER BY \"createdAt\" DESC LIMIT 1")) {
+					statement.setTimestamp(1, end);
+					result.findLast = executeSingle(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE \"createdAt\" >= ? AND \"createdAt\" <= ? ORDER BY \"createdAt\" LIMIT 5")) {
+					statement.setTimestamp(1, start);
+					statement.setTimestamp(2, end);
+					result.topFive = executeCollection(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT_HEAD + " WHERE \"createdAt\" >= ? AND \"createdAt\" <= ? ORDER BY \"createdAt\" DESC LIMIT 10")) {
+					statement.setTimestamp(1, start);
+					statement.setTimestamp(2, end);
+					result.lastTen = executeCollection(statement);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+			return result;
+		}
+	}
+
 }
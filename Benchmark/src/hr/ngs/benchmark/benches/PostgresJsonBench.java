@@ -0,0 +1,175 @@
+package hr.ngs.benchmark.benches;
+
+import hr.ngs.benchmark.*;
+import hr.ngs.benchmark.model.Invoice;
+import hr.ngs.benchmark.model.InvoiceItem;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+//same as PostgresJdbcBench, but reads load invoices with their items in a single query,
+//aggregating items into a json column which is decoded while reading the result
+public abstract class PostgresJsonBench {
+	public static void runBench(String connectionString, BenchType type, int data) throws Exception {
+		setup(connectionString, type).run(data);
+	}
+
+	public static BenchSetup<?> setup(String connectionString, BenchType type) throws Exception {
+		switch (type) {
+			case Standard_Relations:
+				Bench<Invoice> stdBench = new PostgresJsonStandardBench(connectionString);
+				return new BenchSetup<>(Invoice.class, stdBench, Factories.newStandard(), Factories.updateStandard());
+			default:
+				throw new UnsupportedOperationException();
+		}
+	}
+
+	static class PostgresJsonStandardBench extends PostgresJdbcBench.PostgresJdbcStandardBench {
+		private static final String SELECT =
+				"SELECT i.number, i.\"dueDate\", i.total, i.paid, i.canceled, i.version, i.tax, i.reference, i.\"createdAt\", i.\"modifiedAt\", l.items " +
+				"FROM \"StandardRelations\".\"Invoice\" i " +
+				"LEFT JOIN LATERAL (SELECT COALESCE(json_agg(json_build_array(it.product, it.cost, it.quantity, it.\"taxGroup\", it.discount) ORDER BY it.\"Index\"), '[]') AS items " +
+				"FROM \"StandardRelations\".\"Item\" it WHERE it.\"Invoicenumber\" = i.number) l ON true ";
+
+		public PostgresJsonStandardBench(String connectionString) throws SQLException {
+			super(connectionString);
+		}
+
+		private static Invoice readInvoice(ResultSet rs) throws SQLException, IOException {
+			Invoice invoice = new Invoice(
+					rs.getString(1),
+					rs.getDate(2).toLocalDate(),
+					rs.getBigDecimal(3),
+					rs.getObject(4) == null ? null : rs.getTimestamp(4).toLocalDateTime().atOffset(ZoneOffset.UTC),
+					rs.getBoolean(5),
+					rs.getLong(6),
+					rs.getBigDecimal(7),
+					rs.getString(8),
+					rs.getTimestamp(9).toLocalDateTime().atOffset(ZoneOffset.UTC),
+					rs.getTimestamp(10).toLocalDateTime().atOffset(ZoneOffset.UTC));
+			JsonArrayReader json = new JsonArrayReader(rs.getCharacterStream(11));
+			json.startArray();
+			while (json.hasNext()) {
+				json.startArray();
+				invoice.getItems().add(
+						new InvoiceItem(
+								json.readString(),
+								json.readDecimal(),
+								json.readInt(),
+								json.readDecimal(),
+								json.readDecimal()));
+				json.endArray();
+			}
+			return invoice;
+		}
+
+		private static Invoice executeSingle(PreparedStatement statement) throws SQLException, IOException {
+			try (ResultSet rs = statement.executeQuery()) {
+				return rs.next() ? readInvoice(rs) : null;
+			}
+		}
+
+		private static List<Invoice> executeCollection(PreparedStatement statement) throws SQLException, IOException {
+			List<Invoice> result = new ArrayList<>();
+			try (ResultSet rs = statement.executeQuery()) {
+				while (rs.next()) {
+					result.add(readInvoice(rs));
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public List<Invoice> searchAll() {
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT + "ORDER BY i.number")) {
+					return executeCollection(statement);
+				}
+			} catch (SQLException | IOException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public List<Invoice> searchSubset(int i) {
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT + "WHERE i.version >= ? AND i.version <= ? ORDER BY i.number")) {
+					statement.setInt(1, i);
+					statement.setInt(2, i + 10);
+					return executeCollection(statement);
+				}
+			} catch (SQLException | IOException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public Invoice findSingle(String uri) {
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT + "WHERE i.number = ?")) {
+					statement.setString(1, uri);
+					return executeSingle(statement);
+				}
+			} catch (SQLException | IOException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public List<Invoice> findMany(String[] ids) {
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT + "WHERE i.number = ANY(?) ORDER BY i.number")) {
+					statement.setArray(1, connection.createArrayOf("varchar", ids));
+					return executeCollection(statement);
+				}
+			} catch (SQLException | IOException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		@Override
+		public Report<Invoice> report(int i) {
+			Report<Invoice> result = new Report<>();
+			String id = Integer.toString(i);
+			String[] ids = new String[]{Integer.toString(i), Integer.toString(i + 2), Integer.toString(i + 5), Integer.toString(i + 7)};
+			int start = i;
+			int end = i + 6;
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(SELECT + "WHERE i.number = ?")) {
+					statement.setString(1, id);
+					result.findOne = executeSingle(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT + "WHERE i.number = ANY(?) ORDER BY i.number")) {
+					statement.setArray(1, connection.createArrayOf("varchar", ids));
+					result.findMany = executeCollection(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT + "WHERE i.version >= ? ORDER BY i.\"createdAt\" LIMIT 1")) {
+					statement.setInt(1, start);
+					result.findFirst = executeSingle(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT + "WHERE i.version <= ? ORDER BY i.\"createdAt\" DESC LIMIT 1")) {
+					statement.setInt(1, end);
+					result.findLast = executeSingle(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT + "WHERE i.version >= ? AND i.version <= ? ORDER BY i.\"createdAt\", i.number LIMIT 5")) {
+					statement.setInt(1, start);
+					statement.setInt(2, end);
+					result.topFive = executeCollection(statement);
+				}
+				try (PreparedStatement statement = connection.prepareStatement(SELECT + "WHERE i.version >= ? AND i.version <= ? ORDER BY i.\"createdAt\", i.number LIMIT 5")) {
+					statement.setInt(1, start);
+					statement.setInt(2, end);
+					result.lastTen = executeCollection(statement);
+				}
+			} catch (SQLException | IOException ex) {
+				throw new RuntimeException(ex);
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package hr.ngs.benchmark.benches;
+
+import hr.ngs.benchmark.*;
+import hr.ngs.benchmark.model.Invoice;
+import hr.ngs.benchmark.model.InvoiceItem;
+import hr.ngs.benchmark.model.Post;
+
+import java.sql.*;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+//same as PostgresJdbcBench, but report sends all its queries as a single multi statement command.
+//driver submits all statements in one round trip and result sets are read back in order
+public abstract class PostgresPipelinedBench {
+	public static void runBench(String connectionString, BenchType type, int data) throws Exception {
+		setup(connectionString, type).run(data);
+	}
+
+	public static BenchSetup<?> setup(String connectionString, BenchType type) throws Exception {
+		switch (type) {
+			case Simple:
+				Bench<Post> simpleBench = new PostgresPipelinedSimpleBench(connectionString);
+				return new BenchSetup<>(Post.class, simpleBench, Factories.newSimple(), Factories.updateSimple());
+			case Standard_Relations:
+				Bench<Invoice> stdBench = new PostgresPipelinedStandardBench(connectionString);
+				return new BenchSetup<>(Invoice.class, stdBench, Factories.newStandard(), Factories.updateStandard());
+			default:
+				throw new UnsupportedOperationException();
+		}
+	}
+
+	private static ResultSet nextResult(PreparedStatement statement) throws SQLException {
+		if (!statement.getMoreResults()) {
+			throw new SQLException("Expecting another result set");
+		}
+		return statement.getResultSet();
+	}
+
+	static class PostgresPipelinedSimpleBench extends PostgresJdbcBench.PostgresJdbcSimpleBench {
+		private static final String REPORT =
+				"SELECT id, title, created FROM \"Simple\".\"Post\" WHERE id = ?;" +
+				"SELECT id, title, created FROM \"Simple\".\"Post\" WHERE id = ANY(?);" +
+				"SELECT id, title, created FROM \"Simple\".\"Post\" WHERE created >= ? ORDER BY created ASC LIMIT 1;" +
+				"SELECT id, title, created FROM \"Simple\".\"Post\" WHERE created <= ? ORDER BY created DESC LIMIT 1;" +
+				"SELECT id, title, created FROM \"Simple\".\"Post\" WHERE created >= ? AND created <= ? ORDER BY created ASC LIMIT 5;" +
+				"SELECT id, title, created FROM \"Simple\".\"Post\" WHERE created >= ? AND created <= ? ORDER BY created DESC LIMIT 10";
+
+		private final LocalDate today;
+
+		public PostgresPipelinedSimpleBench(String connectionString) throws SQLException {
+			super(connectionString);
+			this.today = Factories.TODAY;
+		}
+
+		private static Post readSingle(ResultSet rs) throws SQLException {
+			try {
+				if (rs.next()) {
+					return new Post((UUID) rs.getObject(1), rs.getString(2), rs.getDate(3).toLocalDate());
+				}
+				return null;
+			} finally {
+				rs.close();
+			}
+		}
+
+		private static void readCollection(ResultSet rs, List<Post> result) throws SQLException {
+			try {
+				while (rs.next()) {
+					result.add(new Post((UUID) rs.getObject(1), rs.getString(2), rs.getDate(3).toLocalDate()));
+				}
+			} finally {
+				rs.close();
+			}
+		}
+
+		@Override
+		public Report<Post> report(int i) {
+			Report<Post> result = new Report<>();
+			UUID id = Factories.GetUUID(i);
+			UUID[] ids = new UUID[]{Factories.GetUUID(i), Factories.GetUUID(i + 2), Factories.GetUUID(i + 5), Factories.GetUUID(i + 7)};
+			Date start = Date.valueOf(today.plusDays(i));
+			Date end = Date.valueOf(today.plusDays(i + 6));
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(REPORT)) {
+					statement.setObject(1, id);
+					statement.setArray(2, connection.createArrayOf("uuid", ids));
+					statement.setDate(3, start);
+					statement.setDate(4, end);
+					statement.setDate(5, start);
+					statement.setDate(6, end);
+					statement.setDate(7, start);
+					statement.setDate(8, end);
+					statement.execute();
+					result.findOne = readSingle(statement.getResultSet());
+					readCollection(nextResult(statement), result.findMany);
+					result.findFirst = readSingle(nextResult(statement));
+					result.findLast = readSingle(nextResult(statement));
+					readCollection(nextResult(statement), result.topFive);
+					readCollection(nextResult(statement), result.lastTen);
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+			return result;
+		}
+	}
+
+	static class PostgresPipelinedStandardBench extends PostgresJdbcBench.PostgresJdbcStandardBench {
+		private static final String HEAD = "SELECT number, \"dueDate\", total, paid, canceled, version, tax, reference, \"createdAt\", \"modifiedAt\" FROM \"StandardRelations\".\"Invoice\" ";
+		private static final String CHILD = "SELECT \"Invoicenumber\", product, cost, quantity, \"taxGroup\", discount FROM \"StandardRelations\".\"Item\" ";
+
+		//children are selected with the head query as a subquery, so all twelve statements can be sent together.
+		//number breaks ties in ordering, so head and subquery always pick the same invoice
+		private static final String REPORT =
+				HEAD + "WHERE number = ?;" +
+				CHILD + "WHERE \"Invoicenumber\" = ? ORDER BY \"Index\";" +
+				HEAD + "WHERE number = ANY(?) ORDER BY number;" +
+				CHILD + "WHERE \"Invoicenumber\" = ANY(?) ORDER BY \"Invoicenumber\", \"Index\";" +
+				HEAD + "WHERE version >= ? ORDER BY \"createdAt\", number LIMIT 1;" +
+				CHILD + "WHERE \"Invoicenumber\" = (SELECT number FROM \"StandardRelations\".\"Invoice\" WHERE version >= ? ORDER BY \"createdAt\", number LIMIT 1) ORDER BY \"Index\";" +
+				HEAD + "WHERE version <= ? ORDER BY \"createdAt\" DESC, number DESC LIMIT 1;" +
+				CHILD + "WHERE \"Invoicenumber\" = (SELECT number FROM \"StandardRelations\".\"Invoice\" WHERE version <= ? ORDER BY \"createdAt\" DESC, number DESC LIMIT 1) ORDER BY \"Index\";" +
+				HEAD + "WHERE version >= ? AND version <= ? ORDER BY \"createdAt\", number LIMIT 5;" +
+				CHILD + "WHERE \"Invoicenumber\" IN (SELECT number FROM \"StandardRelations\".\"Invoice\" WHERE version >= ? AND version <= ? ORDER BY \"createdAt\", number LIMIT 5) ORDER BY \"Invoicenumber\", \"Index\";" +
+				HEAD + "WHERE version >= ? AND version <= ? ORDER BY \"createdAt\", number LIMIT 5;" +
+				CHILD + "WHERE \"Invoicenumber\" IN (SELECT number FROM \"StandardRelations\".\"Invoice\" WHERE version >= ? AND version <= ? ORDER BY \"createdAt\", number LIMIT 5) ORDER BY \"Invoicenumber\", \"Index\"";
+
+		public PostgresPipelinedStandardBench(String connectionString) throws SQLException {
+			super(connectionString);
+		}
+
+		private static Map<String, Invoice> readHeads(ResultSet rs) throws SQLException {
+			Map<String, Invoice> map = new LinkedHashMap<>();
+			try {
+				while (rs.next()) {
+					Invoice invoice = new Invoice(
+							rs.getString(1),
+							rs.getDate(2).toLocalDate(),
+							rs.getBigDecimal(3),
+							rs.getObject(4) == null ? null : rs.getTimestamp(4).toLocalDateTime().atOffset(ZoneOffset.UTC),
+							rs.getBoolean(5),
+							rs.getLong(6),
+							rs.getBigDecimal(7),
+							rs.getString(8),
+							rs.getTimestamp(9).toLocalDateTime().atOffset(ZoneOffset.UTC),
+							rs.getTimestamp(10).toLocalDateTime().atOffset(ZoneOffset.UTC));
+					map.put(invoice.getNumber(), invoice);
+				}
+			} finally {
+				rs.close();
+			}
+			return map;
+		}
+
+		private static void readItems(ResultSet rs, Map<String, Invoice> map) throws SQLException {
+			try {
+				while (rs.next()) {
+					Invoice invoice = map.get(rs.getString(1));
+					if (invoice == null) {
+						throw new SQLException("Item for invoice " + rs.getString(1) + " which was not selected by the head query");
+					}
+					invoice.getItems().add(
+							new InvoiceItem(
+									rs.getString(2),
+									rs.getBigDecimal(3),
+									rs.getInt(4),
+									rs.getBigDecimal(5),
+									rs.getBigDecimal(6)));
+				}
+			} finally {
+				rs.close();
+			}
+		}
+
+		//heads must be consumed before moving to the child result, since getMoreResults closes the current one
+		private static List<Invoice> readCollection(PreparedStatement statement, ResultSet rsHead) throws SQLException {
+			Map<String, Invoice> map = readHeads(rsHead);
+			readItems(nextResult(statement), map);
+			return new ArrayList<>(map.values());
+		}
+
+		private static Invoice readSingle(PreparedStatement statement, ResultSet rsHead) throws SQLException {
+			List<Invoice> result = readCollection(statement, rsHead);
+			return result.isEmpty() ? null : result.get(0);
+		}
+
+		@Override
+		public Report<Invoice> report(int i) {
+			Report<Invoice> result = new Report<>();
+			String id = Integer.toString(i);
+			String[] ids = new String[]{Integer.toString(i), Integer.toString(i + 2), Integer.toString(i + 5), Integer.toString(i + 7)};
+			int start = i;
+			int end = i + 6;
+			try {
+				try (PreparedStatement statement = connection.prepareStatement(REPORT)) {
+					statement.setString(1, id);
+					statement.setString(2, id);
+					statement.setArray(3, connection.createArrayOf("varchar", ids));
+					statement.setArray(4, connection.createArrayOf("varchar", ids));
+					statement.setInt(5, start);
+					statement.setInt(6, start);
+					statement.setInt(7, end);
+					statement.setInt(8, end);
+					for (int p = 9; p <= 15; p += 2) {
+						statement.setInt(p, start);
+						statement.setInt(p + 1, end);
+					}
+					statement.execute();
+					result.findOne = readSingle(statement, statement.getResultSet());
+					result.findMany = readCollection(statement, nextResult(statement));
+					result.findFirst = readSingle(statement, nextResult(statement));
+					result.findLast = readSingle(statement, nextResult(statement));
+					result.topFive = readCollection(statement, nextResult(statement));
+					result.lastTen = readCollection(statement, nextResult(statement));
+				}
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package hr.ngs.benchmark.benches;
+
+import hr.ngs.benchmark.*;
+import hr.ngs.benchmark.model.Invoice;
+import hr.ngs.benchmark.model.InvoiceItem;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+//same as PostgresJdbcBench, but bulk update sends all heads and items as array parameters
+//and applies them with a few set based statements instead of a lookup per invoice
+public abstract class PostgresUnnestBench {
+	public static void runBench(String connectionString, BenchType type, int data) throws Exception {
+		setup(connectionString, type).run(data);
+	}
+
+	public static BenchSetup<?> setup(String connectionString, BenchType type) throws Exception {
+		switch (type) {
+			case Standard_Relations:
+				Bench<Invoice> stdBench = new PostgresUnnestStandardBench(connectionString);
+				return new BenchSetup<>(Invoice.class, stdBench, Factories.newStandard(), Factories.updateStandard());
+			default:
+				throw new UnsupportedOperationException();
+		}
+	}
+
+	static class PostgresUnnestStandardBench extends PostgresJdbcBench.PostgresJdbcStandardBench {
+		private static final String UPDATE_HEADS =
+				"UPDATE \"StandardRelations\".\"Invoice\" i SET number = u.number, \"dueDate\" = u.\"dueDate\", total = u.total, paid = u.paid, canceled = u.canceled, version = u.version, tax = u.tax, reference = u.reference, \"modifiedAt\" = u.\"modifiedAt\" " +
+				"FROM unnest(?::varchar[], ?::varchar[], ?::date[], ?::numeric[], ?::timestamptz[], ?::bool[], ?::int8[], ?::numeric[], ?::varchar[], ?::timestamptz[]) " +
+				"AS u(uri, number, \"dueDate\", total, paid, canceled, version, tax, reference, \"modifiedAt\") WHERE i.number = u.uri";
+
+		//items which already exist are updated, the rest are inserted, in a single round trip
+		private static final String MERGE_ITEMS =
+				"WITH u AS (SELECT * FROM unnest(?::varchar[], ?::int[], ?::varchar[], ?::numeric[], ?::int[], ?::numeric[], ?::numeric[]) AS u(number, \"Index\", product, cost, quantity, \"taxGroup\", discount)), " +
+				"changed AS (UPDATE \"StandardRelations\".\"Item\" it SET product = u.product, cost = u.cost, quantity = u.quantity, \"taxGroup\" = u.\"taxGroup\", discount = u.discount " +
+				"FROM u WHERE it.\"Invoicenumber\" = u.number AND it.\"Index\" = u.\"Index\" RETURNING it.\"Invoicenumber\", it.\"Index\") " +
+				"INSERT INTO \"StandardRelations\".\"Item\"(\"Invoicenumber\", \"Index\", product, cost, quantity, \"taxGroup\", discount) " +
+				"SELECT u.number, u.\"Index\", u.product, u.cost, u.quantity, u.\"taxGroup\", u.discount FROM u " +
+				"WHERE NOT EXISTS (SELECT 1 FROM changed c WHERE c.\"Invoicenumber\" = u.number AND c.\"Index\" = u.\"Index\")";
+
+		private static final String DELETE_ITEMS =
+				"DELETE FROM \"StandardRelations\".\"Item\" it USING unnest(?::varchar[], ?::int[]) AS u(number, count) " +
+				"WHERE it.\"Invoicenumber\" = u.number AND it.\"Index\" >= u.count";
+
+		public PostgresUnnestStandardBench(String connectionString) throws SQLException {
+			super(connectionString);
+		}
+
+		//same instant the batch path stores through Timestamp.valueOf
+		private static String timestamp(OffsetDateTime value) {
+			return value == null ? null : Timestamp.valueOf(value.toLocalDateTime()).toInstant().toString();
+		}
+
+		private static String numeric(BigDecimal value) {
+			return value == null ? null : value.toPlainString();
+		}
+
+		@Override
+		public void update(Collection<Invoice> values) {
+			int size = values.size();
+			String[] uris = new String[size];
+			String[] numbers = new String[size];
+			String[] dueDates = new String[size];
+			String[] totals = new String[size];
+			String[] paid = new String[size];
+			Boolean[] canceled = new Boolean[size];
+			Long[] versions = new Long[size];
+			String[] taxes = new String[size];
+			String[] references = new String[size];
+			String[] modifiedAt = new String[size];
+			Integer[] counts = new Integer[size];
+			List<String> itemNumbers = new ArrayList<>();
+			List<Integer> itemIndexes = new ArrayList<>();
+			List<String> products = new ArrayList<>();
+			List<String> costs = new ArrayList<>();
+			List<Integer> quantities = new ArrayList<>();
+			List<String> taxGroups = new ArrayList<>();
+			List<String> discounts = new ArrayList<>();
+			int row = 0;
+			for (Invoice inv : values) {
+				inv.setModifiedAt(OffsetDateTime.now(ZoneOffset.UTC));
+				uris[row] = inv.getURI();
+				numbers[row] = inv.getNumber();
+				dueDates[row] = inv.getDueDate().toString();
+				totals[row] = numeric(inv.getTotal());
+				paid[row] = timestamp(inv.getPaid());
+				canceled[row] = inv.isCanceled();
+				versions[row] = inv.getVersion();
+				taxes[row] = numeric(inv.getTax());
+				references[row] = inv.getReference();
+				modifiedAt[row] = timestamp(inv.getModifiedAt());
+				counts[row] = inv.getItems().size();
+				for (int i = 0; i < inv.getItems().size(); i++) {
+					InvoiceItem det = inv.getItems().get(i);
+					itemNumbers.add(inv.getNumber());
+					itemIndexes.add(i);
+					products.add(det.getProduct());
+					costs.add(numeric(det.getCost()));
+					quantities.add(det.getQuantity());
+					taxGroups.add(numeric(det.getTaxGroup()));
+					discounts.add(numeric(det.getDiscount()));
+				}
+				row++;
+			}
+			try {
+				connection.setAutoCommit(false);
+				//heads go first, so renamed invoices cascade to their items before items are matched by number
+				try (PreparedStatement head = connection.prepareStatement(UPDATE_HEADS)) {
+					head.setArray(1, connection.createArrayOf("varchar", uris));
+					head.setArray(2, connection.createArrayOf("varchar", numbers));
+					head.setArray(3, connection.createArrayOf("date", dueDates));
+					head.setArray(4, connection.createArrayOf("numeric", totals));
+					head.setArray(5, connection.createArrayOf("timestamptz", paid));
+					head.setArray(6, connection.createArrayOf("bool", canceled));
+					head.setArray(7, connection.createArrayOf("int8", versions));
+					head.setArray(8, connection.createArrayOf("numeric", taxes));
+					head.setArray(9, connection.createArrayOf("varchar", references));
+					head.setArray(10, connection.createArrayOf("timestamptz", modifiedAt));
+					head.executeUpdate();
+				}
+				try (PreparedStatement merge = connection.prepareStatement(MERGE_ITEMS)) {
+					merge.setArray(1, connection.createArrayOf("varchar", itemNumbers.toArray()));
+					merge.setArray(2, connection.createArrayOf("int4", itemIndexes.toArray()));
+					merge.setArray(3, connection.createArrayOf("varchar", products.toArray()));
+					merge.setArray(4, connection.createArrayOf("numeric", costs.toArray()));
+					merge.setArray(5, connection.createArrayOf("int4", quantities.toArray()));
+					merge.setArray(6, connection.createArrayOf("numeric", taxGroups.toArray()));
+					merge.setArray(7, connection.createArrayOf("numeric", discounts.toArray()));
+					merge.executeUpdate();
+				}
+				try (PreparedStatement delete = connection.prepareStatement(DELETE_ITEMS)) {
+					delete.setArray(1, connection.createArrayOf("varchar", numbers));
+					delete.setArray(2, connection.createArrayOf("int4", counts));
+					delete.executeUpdate();
+				}
+				connection.commit();
+				connection.setAutoCommit(true);
+			} catch (SQLException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+
+		//loop updates stay on the per invoice path so only bulk_update differs from Jdbc_Postgres
+		@Override
+		public void update(Invoice value) {
+			super.update(Collections.singletonList(value));
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package hr.ngs.benchmark.benches;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+//reads a single level of Postgres text representation of an array or a composite.
+//nested arrays and composites are returned as readers over the unescaped element
+final class RecordReader {
+	private final String input;
+	private final boolean array;
+	private final char close;
+	private final StringBuilder token = new StringBuilder();
+	private int position;
+	private boolean first = true;
+
+	RecordReader(String input) {
+		this.input = input;
+		char open = input.charAt(0);
+		if (open == '{') {
+			array = true;
+			close = '}';
+		} else if (open == '(') {
+			array = false;
+			close = ')';
+		} else {
+			throw new IllegalArgumentException("Expecting array or record. Found: " + open);
+		}
+		position = 1;
+	}
+
+	//only meaningful for arrays; records are read by position
+	public boolean hasNext() {
+		return input.charAt(position) != close;
+	}
+
+	//returns unescaped value or null
+	private String next() {
+		if (!first) {
+			char c = input.charAt(position++);
+			if (c != ',') {
+				throw new IllegalArgumentException("Expecting ',' at " + (position - 1) + ". Found: " + c);
+			}
+		}
+		first = false;
+		char c = input.charAt(position);
+		if (c == '"') {
+			position++;
+			token.setLength(0);
+			while (true) {
+				c = input.charAt(position++);
+				if (c == '\\') {
+					token.append(input.charAt(position++));
+				} else if (c == '"') {
+					//composites escape quotes by doubling them
+					if (!array && input.charAt(position) == '"') {
+						token.append('"');
+						position++;
+					} else {
+						return token.toString();
+					}
+				} else {
+					token.append(c);
+				}
+			}
+		}
+		int start = position;
+		while (c != ',' && c != close) {
+			c = input.charAt(++position);
+		}
+		if (array) {
+			return position - start == 4 && input.regionMatches(true, start, "NULL", 0, 4) ? null : input.substring(start, position);
+		}
+		return start == position ? null : input.substring(start, position);
+	}
+
+	public void end() {
+		if (input.charAt(position) != close) {
+			throw new IllegalArgumentException("Expecting '" + close + "' at " + position + ". Found: " + input.charAt(position));
+		}
+		position++;
+	}
+
+	public String readString() {
+		return next();
+	}
+
+	public int readInt() {
+		return Integer.parseInt(next());
+	}
+
+	public BigDecimal readDecimal() {
+		String value = next();
+		return value == null ? null : new BigDecimal(value);
+	}
+
+	public LocalDate readDate() {
+		String value = next();
+		return value == null ? null : LocalDate.parse(value);
+	}
+
+	public RecordReader readNested() {
+		String value = next();
+		return value == null ? null : new RecordReader(value);
+	}
+}
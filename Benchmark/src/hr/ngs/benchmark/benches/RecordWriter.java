@@ -0,0 +1,145 @@
+package hr.ngs.benchmark.benches;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+//builds Postgres text representation of nested arrays and composites, eg. "Item"[] or "Account"[] with "Transaction"[] inside.
+//instead of escaping inner values again for every enclosing level, quotes and escapes are written with the number of
+//backslashes required at the current nesting depth, so the whole value is written in a single pass
+final class RecordWriter {
+	private final StringBuilder sb = new StringBuilder();
+	//number of enclosing quoted values
+	private int depth;
+	//open arrays/records with a flag whether an element was already written
+	private final boolean[] started = new boolean[16];
+	private final boolean[] isArray = new boolean[16];
+	private int level;
+
+	public RecordWriter reset() {
+		sb.setLength(0);
+		depth = 0;
+		level = 0;
+		return this;
+	}
+
+	private void separator() {
+		if (level > 0) {
+			if (started[level - 1]) {
+				sb.append(',');
+			}
+			started[level - 1] = true;
+		}
+	}
+
+	private void backslashes(int count) {
+		for (int i = 0; i < count; i++) {
+			sb.append('\\');
+		}
+	}
+
+	//quote at depth n is itself inside n - 1 quoted values: 2^(n-1) - 1 backslashes
+	private void openQuote() {
+		depth++;
+		backslashes((1 << (depth - 1)) - 1);
+		sb.append('"');
+	}
+
+	private void closeQuote() {
+		backslashes((1 << (depth - 1)) - 1);
+		sb.append('"');
+		depth--;
+	}
+
+	private void begin(char c, boolean array) {
+		separator();
+		if (level > 0) {
+			openQuote();
+		}
+		sb.append(c);
+		started[level] = false;
+		isArray[level] = array;
+		level++;
+	}
+
+	private void end(char c) {
+		sb.append(c);
+		level--;
+		if (level > 0) {
+			closeQuote();
+		}
+	}
+
+	public void startArray() {
+		begin('{', true);
+	}
+
+	public void endArray() {
+		end('}');
+	}
+
+	public void startRecord() {
+		begin('(', false);
+	}
+
+	public void endRecord() {
+		end(')');
+	}
+
+	//missing attribute in a record, NULL element in an array
+	public void writeNull() {
+		separator();
+		if (isArray[level - 1]) {
+			sb.append("NULL");
+		}
+	}
+
+	public void writeString(String value) {
+		if (value == null) {
+			writeNull();
+			return;
+		}
+		separator();
+		openQuote();
+		//escaped quote inside value at depth n requires 2^n - 1 backslashes, escaped backslash 2^n
+		int escapes = (1 << depth) - 1;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				backslashes(escapes);
+			} else if (c == '\\') {
+				backslashes(escapes + 1);
+				continue;
+			}
+			sb.append(c);
+		}
+		closeQuote();
+	}
+
+	public void writeInt(int value) {
+		separator();
+		sb.append(value);
+	}
+
+	public void writeDecimal(BigDecimal value) {
+		if (value == null) {
+			writeNull();
+			return;
+		}
+		separator();
+		sb.append(value.toPlainString());
+	}
+
+	public void writeDate(LocalDate value) {
+		if (value == null) {
+			writeNull();
+			return;
+		}
+		separator();
+		sb.append(value.toString());
+	}
+
+	@Override
+	public String toString() {
+		return sb.toString();
+	}
+}
@@ -3,25 +3,121 @@ package hr.ngs.benchmark.benches;
 import hr.ngs.benchmark.*;
 import hr.ngs.benchmark.Report;
 import hr.ngs.benchmark.Simple.Post;
+import org.postgresql.ds.PGPoolingDataSource;
+import org.revenj.Revenj;
 import org.revenj.extensibility.Container;
+import org.revenj.extensibility.SystemAspect;
 import org.revenj.patterns.*;
 
+import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public abstract class RevenjBench {
 	public static void runBench(String connectionString, BenchType type, int data) throws Exception {
+		setup(connectionString, type).run(data);
+	}
+
+	//pooled target shares one locator per database, as a server would.
+	//connections come from the pool and each bench is a scope holding its own connection.
+	//pool is closed with the last scope, so the next run starts with a fresh one
+	private static final ConcurrentMap<String, PooledLocator> pooledLocators = new ConcurrentHashMap<>();
+
+	public static BenchSetup<?> setup(String connectionString, BenchType type) throws Exception {
+		ServiceLocator locator = Boot.configure(connectionString);
+		Connection connection = locator.resolve(Connection.class);
+		((Container) locator).registerInstance(Connection.class, connection, true);
+		return setup(locator, type);
+	}
+
+	//with --threads every worker gets its own scope, so repositories and FindMultiple run on separate connections
+	public static BenchSetup<?> setupPooled(String connectionString, BenchType type) throws Exception {
+		PooledLocator pool = PooledLocator.acquire(connectionString);
+		Container scope = pool.locator.createScope();
+		//scope closes its instances in registration order, so the connection is back in the pool before the pool is released
+		scope.registerInstance(PooledLocator.class, pool, true);
+		try {
+			scope.registerInstance(Connection.class, scope.resolve(Connection.class), true);
+			return setup(scope, type);
+		} catch (Exception ex) {
+			scope.close();
+			throw ex;
+		}
+	}
+
+	//same as Boot.configure, except that connections are taken from the pool
+	private static final class PooledLocator implements AutoCloseable {
+		private final String connectionString;
+		private final PGPoolingDataSource dataSource;
+		private final Container locator;
+		private int scopes;
+
+		private PooledLocator(String connectionString) {
+			this.connectionString = connectionString;
+			this.dataSource = new PGPoolingDataSource();
+			dataSource.setUrl(connectionString);
+			try {
+				Properties properties = new Properties();
+				File file = new File("revenj.properties");
+				if (file.exists() && file.isFile()) {
+					try (Reader reader = new FileReader(file)) {
+						properties.load(reader);
+					}
+				}
+				properties.setProperty("namespace", "hr.ngs.benchmark");
+				this.locator = Revenj.setup(
+						locator -> {
+							try {
+								return dataSource.getConnection();
+							} catch (SQLException e) {
+								throw new RuntimeException(e);
+							}
+						},
+						properties,
+						Optional.empty(),
+						Collections.<SystemAspect>singletonList(new Boot()).iterator());
+			} catch (IOException e) {
+				dataSource.close();
+				throw new RuntimeException(e);
+			}
+		}
+
+		static PooledLocator acquire(String connectionString) {
+			return pooledLocators.compute(connectionString, (cs, pool) -> {
+				PooledLocator result = pool != null ? pool : new PooledLocator(cs);
+				result.scopes++;
+				return result;
+			});
+		}
+
+		@Override
+		public void close() throws Exception {
+			if (pooledLocators.computeIfPresent(connectionString, (cs, pool) -> --pool.scopes == 0 ? null : pool) == null) {
+				try {
+					locator.close();
+				} finally {
+					dataSource.close();
+				}
+			}
+		}
+	}
+
+	private static BenchSetup<?> setup(ServiceLocator locator, BenchType type) throws Exception {
 		switch (type) {
 			case Simple:
 				Bench<Post> simpleBench =
 						new RevenjGenericBench(
 								Post.class,
-								connectionString,
+								locator,
 								i -> new Post.FindBy(Factories.TODAY.plusDays(i), Factories.TODAY.plusDays(i + 10)),
 								(query, i) -> {
 									LocalDate start = Factories.TODAY.plusDays(i);
@@ -31,47 +127,42 @@ public abstract class RevenjBench {
 											.list();
 								},
 								RevenjBench::getSimpleReport);
-				Main.runBenchmark(Post.class, simpleBench, Factories::newSimple, Factories::updateSimple, data);
-				break;
+				return new BenchSetup<>(Post.class, simpleBench, Factories::newSimple, Factories::updateSimple);
 			case Standard_Objects:
 				Bench<hr.ngs.benchmark.StandardObjects.Invoice> stdObjBench =
 						new RevenjGenericBench(
 								hr.ngs.benchmark.StandardObjects.Invoice.class,
-								connectionString,
+								locator,
 								i -> new hr.ngs.benchmark.StandardObjects.Invoice.FindBy(i, i + 10),
 								(query, i) -> ((Query<hr.ngs.benchmark.StandardObjects.Invoice>) query)
 										.filter(it -> it.getVersion() >= i && it.getVersion() <= (i + 10))
 										.list(),
 								RevenjBench::getStandardObjectsReport);
-				Main.runBenchmark(
+				return new BenchSetup<>(
 						hr.ngs.benchmark.StandardObjects.Invoice.class,
 						stdObjBench,
 						Factories::newStandard,
-						Factories::updateStandard,
-						data);
-				break;
+						Factories::updateStandard);
 			case Standard_Relations:
 				Bench<hr.ngs.benchmark.StandardRelations.Invoice> stdRelBench =
 						new RevenjGenericBench(
 								hr.ngs.benchmark.StandardRelations.Invoice.class,
-								connectionString,
+								locator,
 								i -> new hr.ngs.benchmark.StandardRelations.Invoice.FindBy(i, i + 10),
 								(query, i) -> ((Query<hr.ngs.benchmark.StandardObjects.Invoice>) query)
 										.filter(it -> it.getVersion() >= i && it.getVersion() <= (i + 10))
 										.list(),
 								RevenjBench::getStandardRelationalReport);
-				Main.runBenchmark(
+				return new BenchSetup<>(
 						hr.ngs.benchmark.StandardRelations.Invoice.class,
 						stdRelBench,
 						Factories::newStandard,
-						Factories::updateStandard,
-						data);
-				break;
+						Factories::updateStandard);
 			case Complex_Objects:
 				Bench<hr.ngs.benchmark.ComplexObjects.BankScrape> cplObjBench =
 						new RevenjGenericBench(
 								hr.ngs.benchmark.ComplexObjects.BankScrape.class,
-								connectionString,
+								locator,
 								i -> new hr.ngs.benchmark.ComplexObjects.BankScrape.FindBy(Factories.NOW.plusMinutes(i), Factories.NOW.plusMinutes(i + 10)),
 								(query, i) -> {
 									OffsetDateTime start = Factories.NOW.plusMinutes(i);
@@ -81,18 +172,16 @@ public abstract class RevenjBench {
 											.list();
 								},
 								RevenjBench::getComplexObjectsReport);
-				Main.runBenchmark(
+				return new BenchSetup<>(
 						hr.ngs.benchmark.ComplexObjects.BankScrape.class,
 						cplObjBench,
 						Factories::newComplex,
-						Factories::updateComplex,
-						data);
-				break;
+						Factories::updateComplex);
 			case Complex_Relations:
 				Bench<hr.ngs.benchmark.ComplexRelations.BankScrape> cplRelBench =
 						new RevenjGenericBench(
 								hr.ngs.benchmark.ComplexRelations.BankScrape.class,
-								connectionString,
+								locator,
 								i -> new hr.ngs.benchmark.ComplexRelations.BankScrape.FindBy(Factories.NOW.plusMinutes(i), Factories.NOW.plusMinutes(i + 10)),
 								(query, i) -> {
 									OffsetDateTime start = Factories.NOW.plusMinutes(i);
@@ -102,13 +191,11 @@ public abstract class RevenjBench {
 											.list();
 								},
 								RevenjBench::getComplexRelationsReport);
-				Main.runBenchmark(
+				return new BenchSetup<>(
 						hr.ngs.benchmark.ComplexRelations.BankScrape.class,
 						cplRelBench,
 						Factories::newComplex,
-						Factories::updateComplex,
-						data);
-				break;
+						Factories::updateComplex);
 			default:
 				throw new UnsupportedOperationException();
 		}
@@ -227,13 +314,12 @@ public abstract class RevenjBench {
 
 		public RevenjGenericBench(
 				Class<T> manifest,
-				String connectionString,
+				ServiceLocator locator,
 				SearchWith searchFilter,
 				QueryRuntime<T> runQuery,
 				MapReport<T> mapReport) throws Exception {
-			this.locator = Boot.configure(connectionString);
+			this.locator = locator;
 			this.connection = locator.resolve(Connection.class);
-			((Container) locator).registerInstance(Connection.class, connection, true);
 			this.repository = locator.resolve(PersistableRepository.class, manifest);
 			this.searchFilter = searchFilter;
 			this.runQuery = runQuery;
@@ -256,6 +342,18 @@ public abstract class RevenjBench {
 			}
 		}
 
+		//connection is registered to be closed with the locator; pooled scope returns it to the pool
+		@Override
+		public void close() throws IOException {
+			try {
+				((Container) locator).close();
+			} catch (Exception e) {
+				throw new IOException(e);
+			}
+		}
+
+		//repository does not expose a cursor and unordered limit/offset pages are not stable,
+		//so streamed search all falls back to this materialised list and does not stream
 		@Override
 		public List<T> searchAll() {
 			return repository.search();
@@ -0,0 +1,152 @@
+package hr.ngs.benchmark.benches;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//per connection LRU of prepared statements keyed by sql.
+//benches keep calling prepareStatement/close as before; close only returns the statement to the cache.
+//enabled with -Dbench.statementCache=size so cached and uncached runs can be compared
+public final class StatementCache implements InvocationHandler {
+	static final String PROPERTY = "bench.statementCache";
+
+	private final Connection connection;
+	private final Map<String, CachedStatement> statements;
+
+	private StatementCache(Connection connection, int size) {
+		this.connection = connection;
+		this.statements = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+				if (size() <= size) {
+					return false;
+				}
+				eldest.getValue().evict();
+				return true;
+			}
+		};
+	}
+
+	//configured cache size, 0 when statements are not cached
+	public static int size() {
+		return Integer.getInteger(PROPERTY, 0);
+	}
+
+	public static Connection open(String connectionString) throws SQLException {
+		Connection connection = DriverManager.getConnection(connectionString);
+		int size = size();
+		return size > 0 ? wrap(connection, size) : connection;
+	}
+
+	public static Connection wrap(Connection connection, int size) {
+		return (Connection) Proxy.newProxyInstance(
+				StatementCache.class.getClassLoader(),
+				new Class<?>[]{Connection.class},
+				new StatementCache(connection, size));
+	}
+
+	private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		switch (method.getName()) {
+			case "prepareStatement":
+				if (args.length == 1) {
+					return prepare((String) args[0]);
+				}
+				break;
+			case "close":
+				for (CachedStatement it : new ArrayList<>(statements.values())) {
+					it.evict();
+				}
+				statements.clear();
+				break;
+		}
+		return delegate(connection, method, args);
+	}
+
+	private PreparedStatement prepare(String sql) throws SQLException {
+		CachedStatement cached = statements.get(sql);
+		//same sql can be open twice at once; the second one is not cached
+		if (cached != null && cached.inUse) {
+			return connection.prepareStatement(sql);
+		}
+		if (cached == null) {
+			cached = new CachedStatement(connection.prepareStatement(sql));
+			statements.put(sql, cached);
+		}
+		cached.inUse = true;
+		return cached.proxy;
+	}
+
+	private static class CachedStatement implements InvocationHandler {
+		private final PreparedStatement statement;
+		private final PreparedStatement proxy;
+		private final int fetchSize;
+		private final int maxRows;
+		private final int fetchDirection;
+		private boolean inUse;
+		private boolean evicted;
+
+		CachedStatement(PreparedStatement statement) throws SQLException {
+			this.statement = statement;
+			this.fetchSize = statement.getFetchSize();
+			this.maxRows = statement.getMaxRows();
+			this.fetchDirection = statement.getFetchDirection();
+			this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+					StatementCache.class.getClassLoader(),
+					new Class<?>[]{PreparedStatement.class},
+					this);
+		}
+
+		void evict() {
+			evicted = true;
+			if (!inUse) {
+				try {
+					statement.close();
+				} catch (SQLException ex) {
+					throw new RuntimeException(ex);
+				}
+			}
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if ("close".equals(method.getName())) {
+				if (!inUse) {
+					return null;
+				}
+				inUse = false;
+				if (evicted) {
+					statement.close();
+				} else {
+					//settings changed by the previous user, such as fetch size for cursors, must not leak into the next one
+					statement.clearBatch();
+					statement.clearParameters();
+					statement.setFetchSize(fetchSize);
+					statement.setMaxRows(maxRows);
+					statement.setFetchDirection(fetchDirection);
+				}
+				return null;
+			}
+			if ("isClosed".equals(method.getName())) {
+				return !inUse || statement.isClosed();
+			}
+			return delegate(statement, method, args);
+		}
+	}
+}
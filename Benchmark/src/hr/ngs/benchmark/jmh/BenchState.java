@@ -0,0 +1,43 @@
+package hr.ngs.benchmark.jmh;
+
+import hr.ngs.benchmark.*;
+import org.openjdk.jmh.annotations.Param;
+import org.revenj.patterns.AggregateRoot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class BenchState {
+	@Param({"Jdbc_Postgres", "Hibernate_Postgres", "Revenj"})
+	public String target;
+
+	@Param({"Simple", "Standard_Relations"})
+	public String type;
+
+	@Param({"10000"})
+	public int size;
+
+	public BenchSetup<AggregateRoot> setup;
+	public Bench<AggregateRoot> bench;
+	public List<AggregateRoot> items;
+	public String[] uris;
+
+	@SuppressWarnings("unchecked")
+	protected void prepare() throws Exception {
+		if (setup == null) {
+			setup = (BenchSetup<AggregateRoot>) Main.setup(BenchTarget.valueOf(target), BenchType.valueOf(type));
+			bench = setup.bench;
+		}
+		items = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			items.add(setup.create(i));
+		}
+		uris = new String[size];
+	}
+
+	protected void collectUris() {
+		for (int i = 0; i < size; i++) {
+			uris[i] = items.get(i).getURI();
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package hr.ngs.benchmark.jmh;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class JmhMain {
+
+	public static void main(String[] args) throws RunnerException {
+		//args = new String[]{"Jdbc_Postgres,Hibernate_Postgres,Revenj", "Simple", "10000", "find.*"};
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.include(JmhMain.class.getPackage().getName() + "\\.[A-Za-z]+Benchmarks\\."
+						+ (args.length > 3 ? args[3] : ".*"));
+		if (args.length > 0) {
+			options.param("target", args[0].split(","));
+		}
+		if (args.length > 1) {
+			options.param("type", args[1].split(","));
+		}
+		if (args.length > 2) {
+			options.param("size", args[2].split(","));
+		}
+		new Runner(options.build()).run();
+	}
+}
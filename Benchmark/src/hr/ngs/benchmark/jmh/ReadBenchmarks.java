@@ -0,0 +1,85 @@
+package hr.ngs.benchmark.jmh;
+
+import hr.ngs.benchmark.Report;
+import org.openjdk.jmh.annotations.*;
+import org.revenj.patterns.AggregateRoot;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+public class ReadBenchmarks {
+
+	@State(Scope.Benchmark)
+	public static class Loaded extends BenchState {
+		@Setup(Level.Trial)
+		public void load() throws Exception {
+			prepare();
+			bench.clean();
+			bench.insert(items);
+			bench.analyze();
+			collectUris();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+		int i;
+		final String[] lookupUris = new String[10];
+
+		int next() {
+			return i++;
+		}
+	}
+
+	private static <T> T supported(T result, String operation) {
+		if (result == null) {
+			throw new UnsupportedOperationException(operation + " is not supported by this target");
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<AggregateRoot> searchAll(Loaded state) throws IOException {
+		return state.bench.searchAll();
+	}
+
+	@Benchmark
+	public List<AggregateRoot> searchSubset(Loaded state, Cursor cursor) throws IOException {
+		return state.bench.searchSubset(cursor.next() % state.size / 2);
+	}
+
+	@Benchmark
+	public List<AggregateRoot> queryAll(Loaded state) throws IOException {
+		return supported(state.bench.queryAll(), "queryAll");
+	}
+
+	@Benchmark
+	public List<AggregateRoot> querySubset(Loaded state, Cursor cursor) throws IOException {
+		return supported(state.bench.querySubset(cursor.next() % state.size / 2), "querySubset");
+	}
+
+	@Benchmark
+	public AggregateRoot findSingle(Loaded state, Cursor cursor) throws IOException {
+		return state.bench.findSingle(state.uris[cursor.next() % state.uris.length]);
+	}
+
+	@Benchmark
+	public List<AggregateRoot> findMany(Loaded state, Cursor cursor) throws IOException {
+		int start = cursor.next() + state.size / 3;
+		for (int j = 0; j < cursor.lookupUris.length; j++) {
+			cursor.lookupUris[j] = state.uris[(start + j) % state.uris.length];
+		}
+		return state.bench.findMany(cursor.lookupUris);
+	}
+
+	@Benchmark
+	public Report<AggregateRoot> report(Loaded state, Cursor cursor) throws IOException {
+		return supported(state.bench.report(cursor.next() % state.size / 2), "report");
+	}
+}
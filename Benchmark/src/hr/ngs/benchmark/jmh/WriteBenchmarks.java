@@ -0,0 +1,64 @@
+package hr.ngs.benchmark.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import org.revenj.patterns.AggregateRoot;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(2)
+public class WriteBenchmarks {
+
+	@State(Scope.Benchmark)
+	public static class Empty extends BenchState {
+		@Setup(Level.Iteration)
+		public void reset() throws Exception {
+			prepare();
+			bench.clean();
+			bench.analyze();
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Existing extends BenchState {
+		@Setup(Level.Iteration)
+		public void reset() throws Exception {
+			prepare();
+			bench.clean();
+			bench.insert(items);
+			for (int i = 0; i < items.size(); i++) {
+				setup.changeExisting.run(items.get(i), i);
+			}
+			bench.analyze();
+		}
+	}
+
+	@Benchmark
+	public void bulkInsert(Empty state) throws IOException {
+		state.bench.insert(state.items);
+	}
+
+	@Benchmark
+	public void loopInsertHalf(Empty state) throws IOException {
+		for (int i = 0; i < state.items.size() / 2; i++) {
+			state.bench.insert(state.items.get(i));
+		}
+	}
+
+	@Benchmark
+	public void bulkUpdate(Existing state) throws IOException {
+		state.bench.update(state.items);
+	}
+
+	@Benchmark
+	public void loopUpdateHalf(Existing state) throws IOException {
+		for (int i = 0; i < state.items.size() / 2; i++) {
+			AggregateRoot item = state.items.get(i);
+			state.bench.update(item);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package hr.ngs.benchmark.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Account implements Serializable {
+	private BigDecimal balance;
+	private String number;
+	private String name;
+	private String notes;
+	private List<Transaction> transactions = new ArrayList<>();
+	private BankScrape bankScrape;
+	private int index;
+	//kept for composite identifier which Hibernate assembles without the parent
+	private int bankScrapeId;
+
+	public int getBankScrapeId() {
+		return bankScrape != null ? bankScrape.getId() : bankScrapeId;
+	}
+
+	public void setBankScrapeId(int id) {
+		this.bankScrapeId = id;
+	}
+
+	public Account() {
+		setBalance(BigDecimal.ZERO.setScale(2));
+		setNumber("");
+		setName("");
+		setNotes("");
+	}
+
+	public Account(BigDecimal balance, String number, String name, String notes) {
+		this.setBalance(balance);
+		this.setNumber(number);
+		this.setName(name);
+		this.setNotes(notes);
+	}
+
+	public BigDecimal getBalance() {
+		return balance;
+	}
+
+	public void setBalance(BigDecimal balance) {
+		this.balance = balance;
+	}
+
+	public String getNumber() {
+		return number;
+	}
+
+	public void setNumber(String number) {
+		this.number = number;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getNotes() {
+		return notes;
+	}
+
+	public void setNotes(String notes) {
+		this.notes = notes;
+	}
+
+	public List<Transaction> getTransactions() {
+		return transactions;
+	}
+
+	public void setTransactions(List<Transaction> transactions) {
+		this.transactions = transactions;
+	}
+
+	public void addTransaction(Transaction transaction) {
+		transaction.setAccount(this);
+		transaction.setIndex(transactions.size());
+		getTransactions().add(transaction);
+	}
+
+	public BankScrape getBankScrape() {
+		return bankScrape;
+	}
+
+	public void setBankScrape(BankScrape bankScrape) {
+		this.bankScrape = bankScrape;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+}
@@ -0,0 +1,148 @@
+package hr.ngs.benchmark.model;
+
+import hr.ngs.benchmark.Factories;
+import org.revenj.patterns.AggregateRoot;
+
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+public class BankScrape implements AggregateRoot {
+	private int id;
+	private URI website;
+	private OffsetDateTime at;
+	private Map<String, String> info = new HashMap<>();
+	private String externalId;
+	private int ranking;
+	private Set<String> tags = new HashSet<>();
+	private OffsetDateTime createdAt;
+	private List<Account> accounts = new ArrayList<>();
+	private String URI;
+
+	public BankScrape() {
+		setWebsite(java.net.URI.create("https://dsl-platform.com"));
+		setAt(Factories.NOW);
+		setCreatedAt(Factories.NOW);
+	}
+
+	public BankScrape(
+			int id, URI website, OffsetDateTime at, Map<String, String> info, String externalId, int ranking,
+			Set<String> tags, OffsetDateTime createdAt) {
+		this.setId(id);
+		this.setWebsite(website);
+		this.setAt(at);
+		this.setInfo(info);
+		this.setExternalId(externalId);
+		this.setRanking(ranking);
+		this.setTags(tags);
+		this.setCreatedAt(createdAt);
+	}
+
+	@Override
+	public String getURI() {
+		if (URI == null) {
+			URI = Integer.toString(getId());
+		}
+		return URI;
+	}
+
+	@Override
+	public int hashCode() {
+		return getId();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (other == null || !(other instanceof BankScrape)) {
+			return false;
+		}
+		BankScrape value = (BankScrape)other;
+		return value.getId() == this.getId()
+				&& value.getWebsite().equals(this.getWebsite())
+				&& Objects.equals(value.getExternalId(), this.getExternalId())
+				&& value.getRanking() == this.getRanking()
+				&& value.getInfo().equals(this.getInfo())
+				&& value.getTags().equals(this.getTags())
+				&& value.getAccounts().size() == this.getAccounts().size()
+				//...
+				&& value.getCreatedAt().equals(this.getCreatedAt());
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public void setId(int id) {
+		this.id = id;
+	}
+
+	public URI getWebsite() {
+		return website;
+	}
+
+	public void setWebsite(URI website) {
+		this.website = website;
+	}
+
+	public OffsetDateTime getAt() {
+		return at;
+	}
+
+	public void setAt(OffsetDateTime at) {
+		this.at = at;
+	}
+
+	public Map<String, String> getInfo() {
+		return info;
+	}
+
+	public void setInfo(Map<String, String> info) {
+		this.info = info;
+	}
+
+	public String getExternalId() {
+		return externalId;
+	}
+
+	public void setExternalId(String externalId) {
+		this.externalId = externalId;
+	}
+
+	public int getRanking() {
+		return ranking;
+	}
+
+	public void setRanking(int ranking) {
+		this.ranking = ranking;
+	}
+
+	public Set<String> getTags() {
+		return tags;
+	}
+
+	public void setTags(Set<String> tags) {
+		this.tags = tags;
+	}
+
+	public OffsetDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(OffsetDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public List<Account> getAccounts() {
+		return accounts;
+	}
+
+	public void setAccounts(List<Account> accounts) {
+		this.accounts = accounts;
+	}
+
+	public void addAccount(Account account) {
+		account.setBankScrape(this);
+		account.setIndex(accounts.size());
+		getAccounts().add(account);
+	}
+}
@@ -0,0 +1,7 @@
+package hr.ngs.benchmark.model;
+
+public enum Currency {
+	EUR,
+	USD,
+	Other
+}
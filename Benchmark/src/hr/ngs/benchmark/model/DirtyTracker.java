@@ -0,0 +1,11 @@
+package hr.ngs.benchmark.model;
+
+//entities which record changed properties in their setters, as Hibernate bytecode enhancement does with dirty tracking.
+//changes are cleared by the ORM after the entity is loaded or written
+public interface DirtyTracker {
+	boolean hasChanges();
+
+	boolean isChanged(String property);
+
+	void clearChanges();
+}
@@ -9,7 +9,7 @@ import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
-public class Invoice implements AggregateRoot {
+public class Invoice implements AggregateRoot, DirtyTracker {
 	private String number;
 	private LocalDate dueDate;
 	private BigDecimal total;
@@ -22,6 +22,7 @@ public class Invoice implements AggregateRoot {
 	private OffsetDateTime modifiedAt;
 	private List<InvoiceItem> items = new ArrayList<>();
 	private String URI;
+	private transient int changes;
 
 	public Invoice() {
 		setNumber("");
@@ -55,6 +56,32 @@ public class Invoice implements AggregateRoot {
 		return URI;
 	}
 
+	@Override
+	public boolean hasChanges() {
+		return changes != 0;
+	}
+
+	@Override
+	public boolean isChanged(String property) {
+		switch (property) {
+			case "dueDate": return (changes & 1) != 0;
+			case "total": return (changes & 2) != 0;
+			case "paid": return (changes & 4) != 0;
+			case "canceled": return (changes & 8) != 0;
+			case "version": return (changes & 16) != 0;
+			case "tax": return (changes & 32) != 0;
+			case "reference": return (changes & 64) != 0;
+			case "createdAt": return (changes & 128) != 0;
+			case "modifiedAt": return (changes & 256) != 0;
+			default: return false;
+		}
+	}
+
+	@Override
+	public void clearChanges() {
+		changes = 0;
+	}
+
 	@Override
 	public int hashCode() {
 		return getNumber().hashCode();
@@ -89,6 +116,7 @@ public class Invoice implements AggregateRoot {
 
 	public void setDueDate(LocalDate dueDate) {
 		this.dueDate = dueDate;
+		changes |= 1;
 	}
 
 	public BigDecimal getTotal() {
@@ -97,6 +125,7 @@ public class Invoice implements AggregateRoot {
 
 	public void setTotal(BigDecimal total) {
 		this.total = total;
+		changes |= 2;
 	}
 
 	public OffsetDateTime getPaid() {
@@ -105,6 +134,7 @@ public class Invoice implements AggregateRoot {
 
 	public void setPaid(OffsetDateTime paid) {
 		this.paid = paid;
+		changes |= 4;
 	}
 
 	public boolean isCanceled() {
@@ -113,6 +143,7 @@ public class Invoice implements AggregateRoot {
 
 	public void setCanceled(boolean canceled) {
 		this.canceled = canceled;
+		changes |= 8;
 	}
 
 	public long getVersion() {
@@ -121,6 +152,7 @@ public class Invoice implements AggregateRoot {
 
 	public void setVersion(long version) {
 		this.version = version;
+		changes |= 16;
 	}
 
 	public BigDecimal getTax() {
@@ -129,6 +161,7 @@ public class Invoice implements AggregateRoot {
 
 	public void setTax(BigDecimal tax) {
 		this.tax = tax;
+		changes |= 32;
 	}
 
 	public String getReference() {
@@ -137,6 +170,7 @@ public class Invoice implements AggregateRoot {
 
 	public void setReference(String reference) {
 		this.reference = reference;
+		changes |= 64;
 	}
 
 	public OffsetDateTime getCreatedAt() {
@@ -145,6 +179,7 @@ public class Invoice implements AggregateRoot {
 
 	public void setCreatedAt(OffsetDateTime createdAt) {
 		this.createdAt = createdAt;
+		changes |= 128;
 	}
 
 	public OffsetDateTime getModifiedAt() {
@@ -153,6 +188,7 @@ public class Invoice implements AggregateRoot {
 
 	public void setModifiedAt(OffsetDateTime modifiedAt) {
 		this.modifiedAt = modifiedAt;
+		changes |= 256;
 	}
 
 	public List<InvoiceItem> getItems() {
@@ -3,7 +3,7 @@ package hr.ngs.benchmark.model;
 import java.io.Serializable;
 import java.math.BigDecimal;
 
-public class InvoiceItem implements Serializable {
+public class InvoiceItem implements Serializable, DirtyTracker {
 	private String product;
 	private BigDecimal cost;
 	private int quantity;
@@ -11,12 +11,15 @@ public class InvoiceItem implements Serializable {
 	private BigDecimal discount;
 	private Invoice invoice;
 	private int index;
+	private String invoiceNumber;
+	private transient int changes;
 
 	public String getInvoiceNumber() {
-		return invoice != null ? invoice.getNumber() : null;
+		return invoice != null ? invoice.getNumber() : invoiceNumber;
 	}
 
 	public void setInvoiceNumber(String number) {
+		this.invoiceNumber = number;
 	}
 
 	public InvoiceItem() {
@@ -40,6 +43,7 @@ public class InvoiceItem implements Serializable {
 
 	public void setProduct(String product) {
 		this.product = product;
+		changes |= 1;
 	}
 
 	public BigDecimal getCost() {
@@ -48,6 +52,7 @@ public class InvoiceItem implements Serializable {
 
 	public void setCost(BigDecimal cost) {
 		this.cost = cost;
+		changes |= 2;
 	}
 
 	public int getQuantity() {
@@ -56,6 +61,7 @@ public class InvoiceItem implements Serializable {
 
 	public void setQuantity(int quantity) {
 		this.quantity = quantity;
+		changes |= 4;
 	}
 
 	public BigDecimal getTaxGroup() {
@@ -64,6 +70,7 @@ public class InvoiceItem implements Serializable {
 
 	public void setTaxGroup(BigDecimal taxGroup) {
 		this.taxGroup = taxGroup;
+		changes |= 8;
 	}
 
 	public BigDecimal getDiscount() {
@@ -72,6 +79,7 @@ public class InvoiceItem implements Serializable {
 
 	public void setDiscount(BigDecimal discount) {
 		this.discount = discount;
+		changes |= 16;
 	}
 
 	public Invoice getInvoice() {
@@ -89,4 +97,27 @@ public class InvoiceItem implements Serializable {
 	public void setIndex(int index) {
 		this.index = index;
 	}
+
+	@Override
+	public boolean hasChanges() {
+		return changes != 0;
+	}
+
+	//invoice and index are part of the key and never updated
+	@Override
+	public boolean isChanged(String property) {
+		switch (property) {
+			case "product": return (changes & 1) != 0;
+			case "cost": return (changes & 2) != 0;
+			case "quantity": return (changes & 4) != 0;
+			case "taxGroup": return (changes & 8) != 0;
+			case "discount": return (changes & 16) != 0;
+			default: return false;
+		}
+	}
+
+	@Override
+	public void clearChanges() {
+		changes = 0;
+	}
 }
@@ -5,11 +5,12 @@ import org.revenj.patterns.AggregateRoot;
 import java.time.LocalDate;
 import java.util.UUID;
 
-public class Post implements AggregateRoot {
+public class Post implements AggregateRoot, DirtyTracker {
 	private UUID id;
 	private String title;
 	private LocalDate created;
 	private String URI;
+	private transient int changes;
 
 	public Post() {
 		this.id = UUID.randomUUID();
@@ -27,10 +28,10 @@ public class Post implements AggregateRoot {
 	public void setId(UUID value) { id = value; }
 
 	public String getTitle() { return title; }
-	public void setTitle(String value) { title = value; }
+	public void setTitle(String value) { title = value; changes |= 1; }
 
 	public LocalDate getCreated() { return created; }
-	public void setCreated(LocalDate value) { created = value; }
+	public void setCreated(LocalDate value) { created = value; changes |= 2; }
 
 	@Override
 	public String getURI() {
@@ -40,6 +41,25 @@ public class Post implements AggregateRoot {
 		return URI;
 	}
 
+	@Override
+	public boolean hasChanges() {
+		return changes != 0;
+	}
+
+	@Override
+	public boolean isChanged(String property) {
+		switch (property) {
+			case "title": return (changes & 1) != 0;
+			case "created": return (changes & 2) != 0;
+			default: return false;
+		}
+	}
+
+	@Override
+	public void clearChanges() {
+		changes = 0;
+	}
+
 	@Override
 	public int hashCode() {
 		return id.hashCode();
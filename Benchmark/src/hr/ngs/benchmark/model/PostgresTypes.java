@@ -0,0 +1,231 @@
+package hr.ngs.benchmark.model;
+
+import org.hibernate.type.AbstractSingleColumnStandardBasicType;
+import org.hibernate.type.descriptor.ValueBinder;
+import org.hibernate.type.descriptor.ValueExtractor;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.AbstractTypeDescriptor;
+import org.hibernate.type.descriptor.java.ImmutableMutabilityPlan;
+import org.hibernate.type.descriptor.java.JavaTypeDescriptor;
+import org.hibernate.type.descriptor.java.MutabilityPlan;
+import org.hibernate.type.descriptor.java.MutableMutabilityPlan;
+import org.hibernate.type.descriptor.sql.BasicBinder;
+import org.hibernate.type.descriptor.sql.BasicExtractor;
+import org.hibernate.type.descriptor.sql.SqlTypeDescriptor;
+import org.postgresql.util.HStoreConverter;
+
+import java.net.URI;
+import java.sql.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+//Hibernate types for Postgres columns used in Complex.hbm.xml.
+//they are built from type descriptors instead of UserType, since its method signatures differ between Hibernate 5 versions
+public abstract class PostgresTypes {
+
+	public static class Uri extends AbstractSingleColumnStandardBasicType<URI> {
+		public Uri() {
+			super(
+					new Column(Types.VARCHAR, (connection, value) -> value.toString(), value -> URI.create((String) value)),
+					new Descriptor<>(URI.class, ImmutableMutabilityPlan.INSTANCE, URI::toString, URI::create));
+		}
+
+		@Override
+		public String getName() {
+			return "uri";
+		}
+	}
+
+	//driver sends Map as hstore literal and returns hstore columns as Map
+	public static class Hstore extends AbstractSingleColumnStandardBasicType<Map> {
+		public Hstore() {
+			super(
+					new Column(Types.OTHER, (connection, value) -> value, value -> value),
+					new Descriptor<>(Map.class, copyOf(HashMap::new), HStoreConverter::toString, HStoreConverter::fromString));
+		}
+
+		@Override
+		public String getName() {
+			return "hstore";
+		}
+	}
+
+	public static class VarcharSet extends AbstractSingleColumnStandardBasicType<Set> {
+		public VarcharSet() {
+			super(
+					new Column(
+							Types.ARRAY,
+							(connection, value) -> connection.createArrayOf("varchar", ((Set) value).toArray()),
+							value -> new HashSet<>(Arrays.asList((String[]) ((Array) value).getArray()))),
+					new Descriptor<>(Set.class, copyOf(HashSet::new), PostgresTypes::toArrayLiteral, PostgresTypes::fromArrayLiteral));
+		}
+
+		@Override
+		public String getName() {
+			return "varchar_set";
+		}
+	}
+
+	//collections are copied for dirty checking
+	private static <T> MutabilityPlan<T> copyOf(UnaryOperator<T> copy) {
+		return new MutableMutabilityPlan<T>() {
+			@Override
+			protected T deepCopyNotNull(T value) {
+				return copy.apply(value);
+			}
+		};
+	}
+
+	//string form is the Postgres array literal, eg. {"a","b"}
+	private static String toArrayLiteral(Set<?> value) {
+		StringBuilder sb = new StringBuilder("{");
+		for (Object it : value) {
+			if (sb.length() > 1) {
+				sb.append(',');
+			}
+			sb.append('"');
+			for (char c : it.toString().toCharArray()) {
+				if (c == '"' || c == '\\') {
+					sb.append('\\');
+				}
+				sb.append(c);
+			}
+			sb.append('"');
+		}
+		return sb.append('}').toString();
+	}
+
+	private static Set<String> fromArrayLiteral(String value) {
+		Set<String> result = new HashSet<>();
+		if (!value.startsWith("{") || !value.endsWith("}")) {
+			throw new IllegalArgumentException("Invalid array literal: " + value);
+		}
+		StringBuilder sb = new StringBuilder();
+		boolean quoted = false;
+		boolean any = false;
+		for (int i = 1; i < value.length() - 1; i++) {
+			char c = value.charAt(i);
+			if (c == '\\' && i + 1 < value.length() - 1) {
+				sb.append(value.charAt(++i));
+			} else if (c == '"') {
+				quoted = !quoted;
+			} else if (c == ',' && !quoted) {
+				result.add(sb.toString());
+				sb.setLength(0);
+			} else {
+				sb.append(c);
+			}
+			any = true;
+		}
+		if (any) {
+			result.add(sb.toString());
+		}
+		return result;
+	}
+
+	//converts a non null value to the object passed to setObject
+	private interface Bind {
+		Object toJdbc(Connection connection, Object value) throws SQLException;
+	}
+
+	//converts a non null object returned by getObject
+	private interface Extract {
+		Object fromJdbc(Object value) throws SQLException;
+	}
+
+	//same conversion is used for prepared and callable statements, by index or by name
+	private static class Column implements SqlTypeDescriptor {
+		private final int sqlType;
+		private final Bind bind;
+		private final Extract extract;
+
+		Column(int sqlType, Bind bind, Extract extract) {
+			this.sqlType = sqlType;
+			this.bind = bind;
+			this.extract = extract;
+		}
+
+		@Override
+		public int getSqlType() {
+			return sqlType;
+		}
+
+		@Override
+		public boolean canBeRemapped() {
+			return false;
+		}
+
+		@Override
+		public <X> ValueBinder<X> getBinder(JavaTypeDescriptor<X> javaTypeDescriptor) {
+			return new BasicBinder<X>(javaTypeDescriptor, this) {
+				@Override
+				protected void doBind(PreparedStatement st, X value, int index, WrapperOptions options) throws SQLException {
+					st.setObject(index, bind.toJdbc(st.getConnection(), value));
+				}
+
+				@Override
+				protected void doBind(CallableStatement st, X value, String name, WrapperOptions options) throws SQLException {
+					st.setObject(name, bind.toJdbc(st.getConnection(), value));
+				}
+			};
+		}
+
+		@Override
+		public <X> ValueExtractor<X> getExtractor(JavaTypeDescriptor<X> javaTypeDescriptor) {
+			return new BasicExtractor<X>(javaTypeDescriptor, this) {
+				@Override
+				protected X doExtract(ResultSet rs, String name, WrapperOptions options) throws SQLException {
+					return convert(rs.getObject(name));
+				}
+
+				@Override
+				protected X doExtract(CallableStatement statement, int index, WrapperOptions options) throws SQLException {
+					return convert(statement.getObject(index));
+				}
+
+				@Override
+				protected X doExtract(CallableStatement statement, String name, WrapperOptions options) throws SQLException {
+					return convert(statement.getObject(name));
+				}
+
+				@SuppressWarnings("unchecked")
+				private X convert(Object value) throws SQLException {
+					return value != null ? (X) extract.fromJdbc(value) : null;
+				}
+			};
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static class Descriptor<T> extends AbstractTypeDescriptor<T> {
+		private final Function<T, String> format;
+		private final Function<String, T> parse;
+
+		Descriptor(Class<T> type, MutabilityPlan<T> mutabilityPlan, Function<T, String> format, Function<String, T> parse) {
+			super(type, mutabilityPlan);
+			this.format = format;
+			this.parse = parse;
+		}
+
+		@Override
+		public String toString(T value) {
+			return format.apply(value);
+		}
+
+		@Override
+		public T fromString(String string) {
+			return parse.apply(string);
+		}
+
+		@Override
+		public <X> X unwrap(T value, Class<X> type, WrapperOptions options) {
+			return (X) value;
+		}
+
+		@Override
+		public <X> T wrap(X value, WrapperOptions options) {
+			return (T) value;
+		}
+	}
+}
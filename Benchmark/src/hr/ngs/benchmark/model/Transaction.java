@@ -0,0 +1,94 @@
+package hr.ngs.benchmark.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class Transaction implements Serializable {
+	private LocalDate date;
+	private String description;
+	private Currency currency;
+	private BigDecimal amount;
+	private Account account;
+	private int index;
+	//kept for composite identifier which Hibernate assembles without the parent
+	private int accountBankScrapeId;
+	private int accountIndex;
+
+	public int getAccountBankScrapeId() {
+		return account != null ? account.getBankScrapeId() : accountBankScrapeId;
+	}
+
+	public void setAccountBankScrapeId(int id) {
+		this.accountBankScrapeId = id;
+	}
+
+	public int getAccountIndex() {
+		return account != null ? account.getIndex() : accountIndex;
+	}
+
+	public void setAccountIndex(int index) {
+		this.accountIndex = index;
+	}
+
+	public Transaction() {
+		setDate(LocalDate.now());
+		setDescription("");
+		setAmount(BigDecimal.ZERO.setScale(2));
+	}
+
+	public Transaction(LocalDate date, String description, Currency currency, BigDecimal amount) {
+		this.setDate(date);
+		this.setDescription(description);
+		this.setCurrency(currency);
+		this.setAmount(amount);
+	}
+
+	public LocalDate getDate() {
+		return date;
+	}
+
+	public void setDate(LocalDate date) {
+		this.date = date;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public void setDescription(String description) {
+		this.description = description;
+	}
+
+	public Currency getCurrency() {
+		return currency;
+	}
+
+	public void setCurrency(Currency currency) {
+		this.currency = currency;
+	}
+
+	public BigDecimal getAmount() {
+		return amount;
+	}
+
+	public void setAmount(BigDecimal amount) {
+		this.amount = amount;
+	}
+
+	public Account getAccount() {
+		return account;
+	}
+
+	public void setAccount(Account account) {
+		this.account = account;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+}